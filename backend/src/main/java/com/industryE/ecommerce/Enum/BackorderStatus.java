@@ -0,0 +1,7 @@
+package com.industryE.ecommerce.Enum;
+
+public enum BackorderStatus {
+    WAITING,     // In its size's queue until a restock covers it
+    ALLOCATED,   // Stock reserved and an order placed; see the backorder's order id
+    CANCELLED    // Withdrawn by the customer before allocation
+}
@@ -0,0 +1,8 @@
+package com.industryE.ecommerce.Enum;
+
+public enum CartLineAvailability {
+    AVAILABLE,           // Requested quantity is in stock
+    INSUFFICIENT_STOCK,  // Some stock left, but less than the line quantity
+    OUT_OF_STOCK,        // Size exists but nothing is available
+    UNAVAILABLE          // Product or size no longer offered
+}
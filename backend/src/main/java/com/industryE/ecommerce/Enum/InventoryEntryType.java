@@ -0,0 +1,10 @@
+package com.industryE.ecommerce.Enum;
+
+public enum InventoryEntryType {
+    RESERVE,   // Stock reserved for an order
+    RELEASE,   // Reservation returned to sale (cancelled or expired order)
+    CONFIRM,   // Reservation turned into a sale
+    ADJUST,    // Stock level set by an admin or at product setup
+    HOLD,      // Soft cart hold placed, changed or released
+    SHARD      // Stock moved between the product and a hot size's shard counters
+}
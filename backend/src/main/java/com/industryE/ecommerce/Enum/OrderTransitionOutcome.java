@@ -0,0 +1,10 @@
+package com.industryE.ecommerce.Enum;
+
+public enum OrderTransitionOutcome {
+    UPDATED,             // Status changed
+    UNCHANGED,           // Order already had the requested status
+    NOT_FOUND,           // No order with this id
+    INVALID_TRANSITION,  // The state machine does not allow this change
+    PAYMENT_REQUIRED,    // Target status needs a completed payment
+    FAILED               // The chunk containing this order could not be written
+}
@@ -0,0 +1,8 @@
+package com.industryE.ecommerce.Enum;
+
+public enum ProductAvailability {
+    IN_STOCK,     // At least one size has more than the few-left threshold
+    FEW_LEFT,     // Every size still in stock is at or below the few-left threshold
+    SOLD_OUT,     // Sizes exist but none has stock
+    UNAVAILABLE   // Product not found, or none of the requested sizes is offered
+}
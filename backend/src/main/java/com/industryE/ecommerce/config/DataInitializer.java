@@ -1,5 +1,6 @@
 package com.industryE.ecommerce.config;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
@@ -158,7 +159,7 @@ public class DataInitializer implements CommandLineRunner {
             "Style Seeker"
         };
         
-        List<User> demoUsers = new java.util.ArrayList<User>();
+        List<User> demoUsers = new ArrayList<>();
         
         // Create demo users if they don't exist
         for (int i = 0; i < demoUserNames.length; i++) {
@@ -187,6 +188,7 @@ public class DataInitializer implements CommandLineRunner {
         };
         
         Random random = new Random();
+        List<Review> reviews = new ArrayList<>();
         
         for (Product product : products) {
             // Add 2-4 reviews per product
@@ -200,19 +202,21 @@ public class DataInitializer implements CommandLineRunner {
                 // Randomly select a demo user for each review
                 User selectedUser = demoUsers.get(random.nextInt(demoUsers.size()));
                 
-                Review review = new Review(rating, comment, selectedUser, product);
                 // Spread out creation times slightly if needed, but default is now()
-                reviewRepository.save(review);
+                reviews.add(new Review(rating, comment, selectedUser, product));
                 ratingSum += rating;
             }
             
             // Update product average rating
             if (reviewCount > 0) {
                 product.setRating(ratingSum / reviewCount);
-                productRepository.save(product);
             }
         }
         
+        // Save everything in two batched calls instead of one insert/update per row
+        reviewRepository.saveAll(reviews);
+        productRepository.saveAll(products);
+        
         System.out.println("Sample reviews created successfully");
     }
 
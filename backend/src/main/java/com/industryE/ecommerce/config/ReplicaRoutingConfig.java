@@ -0,0 +1,116 @@
+package com.industryE.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the auto-configured DataSource with a {@link ReplicaRoutingDataSource} when
+ * {@code app.datasource.replica.urls} is set. Replicas share the primary's driver and credentials
+ * unless overridden under {@code app.datasource.replica.*}; any JDBC URL works, so two local H2
+ * or MySQL instances can stand in for replicas. The primary pool ({@code primaryDataSource}) and
+ * one pool per replica ({@code replicaDataSource0}, {@code replicaDataSource1}, ...) are beans of
+ * their own, so they are closed on shutdown and show up in the connection pool metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class ReplicaRoutingConfig {
+
+    static final String REPLICA_BEAN_PREFIX = "replicaDataSource";
+
+    @Value("${app.datasource.replica.urls}")
+    private String[] replicaUrls;
+
+    @Value("${app.datasource.replica.lag-query:}")
+    private String lagQuery;
+
+    @Value("${app.datasource.replica.max-lag-seconds:2}")
+    private long maxLagSeconds;
+
+    @Value("${app.datasource.replica.sticky-window-ms:5000}")
+    private long stickyWindowMillis;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // The number of replicas comes from configuration, so their beans are registered before any are created
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor replicaDataSources(Environment environment) {
+        String[] urls = environment.getRequiredProperty("app.datasource.replica.urls", String[].class);
+        String username = environment.getProperty("app.datasource.replica.username",
+                environment.getProperty("spring.datasource.username", ""));
+        String password = environment.getProperty("app.datasource.replica.password",
+                environment.getProperty("spring.datasource.password", ""));
+        String driverClassName = environment.getProperty("app.datasource.replica.driver-class-name",
+                environment.getProperty("spring.datasource.driver-class-name", ""));
+        return registry -> {
+            for (int i = 0; i < urls.length; i++) {
+                int index = i;
+                registry.registerBeanDefinition(REPLICA_BEAN_PREFIX + i, BeanDefinitionBuilder
+                        .genericBeanDefinition(HikariDataSource.class,
+                                () -> replica(index, urls[index].trim(), username, password, driverClassName))
+                        .setDestroyMethodName("close")
+                        .getBeanDefinition());
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 Map<String, HikariDataSource> pools) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            replicas.add(pools.get(REPLICA_BEAN_PREFIX + i));
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, lagQuery, maxLagSeconds, stickyWindowMillis);
+        routingDataSource.afterPropertiesSet();
+
+        // Defer connection lookup until the first statement, after the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval-ms:2000}")
+    public void checkReplicaHealth() {
+        if (routingDataSource != null) {
+            routingDataSource.refreshReplicaHealth();
+        }
+    }
+
+    private static HikariDataSource replica(int index, String url, String username, String password, String driverClassName) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica-" + index);
+        replica.setJdbcUrl(url);
+        replica.setUsername(username);
+        replica.setPassword(password);
+        if (!driverClassName.isBlank()) {
+            replica.setDriverClassName(driverClassName);
+        }
+        replica.setReadOnly(true);
+        return replica;
+    }
+}
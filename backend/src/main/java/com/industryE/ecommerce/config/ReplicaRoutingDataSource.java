@@ -0,0 +1,162 @@
+package com.industryE.ecommerce.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to a pool of replica DataSources and everything else to the primary.
+ * Replicas that fail their health check or lag too far behind are skipped, and a user whose own write
+ * committed within the sticky window keeps reading from the primary so they always see their changes.
+ * Must sit behind a LazyConnectionDataSourceProxy so the read-only flag is known when the connection is fetched.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Username -> time of the user's last committed write
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final long stickyWindowMillis;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    String lagQuery, long maxLagSeconds, long stickyWindowMillis) {
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.stickyWindowMillis = stickyWindowMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return PRIMARY;
+        }
+
+        String username = currentUsername();
+        if (username != null) {
+            Long lastWrite = recentWriters.get(username);
+            if (lastWrite != null && System.currentTimeMillis() - lastWrite < stickyWindowMillis) {
+                return PRIMARY;
+            }
+        }
+
+        // Round-robin over healthy replicas, falling back to the primary when none are usable
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Probes every replica and marks it unhealthy when unreachable or lagging more than the allowed
+     * number of seconds. The lag query must return a single numeric column (seconds behind the primary);
+     * when no lag query is configured only connectivity is checked.
+     */
+    public void refreshReplicaHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (lagQuery == null || lagQuery.isBlank()) {
+                    healthy = connection.isValid(1);
+                } else {
+                    try (Statement statement = connection.createStatement();
+                         ResultSet rs = statement.executeQuery(lagQuery)) {
+                        // A null lag (replication stopped) counts as unhealthy
+                        healthy = rs.next() && rs.getObject(1) != null && rs.getLong(1) <= maxLagSeconds;
+                    }
+                }
+            } catch (Exception e) {
+                healthy = false;
+            }
+
+            if (replica.healthy != healthy) {
+                System.err.println("Replica " + replica.key + " is now " + (healthy ? "healthy" : "unhealthy - routing reads to primary"));
+            }
+            replica.healthy = healthy;
+        }
+
+        long cutoff = System.currentTimeMillis() - stickyWindowMillis;
+        recentWriters.values().removeIf(lastWrite -> lastWrite < cutoff);
+    }
+
+    // Registers (once per transaction) a callback that pins the current user to the primary after commit
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        String username = currentUsername();
+        if (username == null) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, username);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(username, System.currentTimeMillis());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+            }
+        });
+    }
+
+    // Anonymous callers all share one name, so they are never pinned: one registration would pin them all
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
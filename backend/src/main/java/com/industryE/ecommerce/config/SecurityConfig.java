@@ -5,10 +5,12 @@ import java.util.Arrays;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -25,6 +27,7 @@ import com.industryE.ecommerce.service.CustomUserDetailsService;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity // Enforces @PreAuthorize on controllers as well as the URL rules below
 public class SecurityConfig {
     
     @Autowired
@@ -60,8 +63,17 @@ public class SecurityConfig {
                 // GUEST MODE: Allow browsing without authentication
                 // 1. Auth endpoints - Public (Login/Register)
                 .requestMatchers(HttpMethod.POST, "/api/auth/login", "/api/auth/register").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/cart/guest").permitAll() // Signed client-side guest cart
+                .requestMatchers(HttpMethod.POST, "/api/products/availability").permitAll() // Listing badges, read-only
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // CORS preflight
                 
+                // Actuator - health is public, metrics (cache statistics etc.) are admin only
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasAuthority("ADMIN")
+                
+                // Admin API - every method, ahead of the public GET rule below
+                .requestMatchers("/api/admin/**").hasAuthority("ADMIN")
+                
                 // 2. ALL GET requests - Public (browse products, view pages, fetch data)
                 .requestMatchers(HttpMethod.GET, "/**").permitAll()
                 
@@ -90,8 +102,10 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList(HttpHeaders.ETAG,
+            SqlStatementFilter.STATEMENT_COUNT_HEADER, SqlStatementFilter.STATEMENT_TIME_HEADER));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
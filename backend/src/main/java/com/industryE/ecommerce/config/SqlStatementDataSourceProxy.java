@@ -0,0 +1,98 @@
+package com.industryE.ecommerce.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the application DataSource so that every JDBC round trip (single statement or batch) is
+ * counted against the current request in {@link SqlStatementStats}. Only the execute calls are
+ * intercepted; parameter setters and batch adds go straight to the driver, so bulk writes don't pay
+ * for bookkeeping they never report. Only the {@code dataSource} bean is wrapped: the pools behind
+ * a replica-routing DataSource are beans too, and wrapping them as well would count each statement twice.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementDataSourceProxy implements BeanPostProcessor {
+
+    private static final String APPLICATION_DATA_SOURCE = "dataSource";
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (APPLICATION_DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource
+                && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(super.getConnection(username, password));
+        }
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    // Only the statements are counted, so wrap them on the way out
+                    if (result instanceof Statement statement) {
+                        Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                                : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+                                new StatementCounter(statement));
+                    }
+                    return result;
+                });
+    }
+
+    private record StatementCounter(Statement target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // execute, executeQuery, executeUpdate, executeBatch and their large variants
+            if (!method.getName().startsWith("execute")) {
+                return SqlStatementDataSourceProxy.invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return SqlStatementDataSourceProxy.invoke(target, method, args);
+            } finally {
+                SqlStatementStats.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
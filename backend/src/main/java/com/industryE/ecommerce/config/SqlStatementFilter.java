@@ -0,0 +1,76 @@
+package com.industryE.ecommerce.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tracks the JDBC statements issued while serving each HTTP request.
+ * Requests that exceed {@code app.sql-stats.statement-budget} are logged as likely N+1 offenders.
+ * When {@code app.sql-stats.expose-header} is on (dev profile), the count and time are also returned
+ * in the X-SQL-Statement-Count and X-SQL-Time-Ms response headers so integration tests can assert budgets.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENT_COUNT_HEADER = "X-SQL-Statement-Count";
+    public static final String STATEMENT_TIME_HEADER = "X-SQL-Time-Ms";
+
+    @Value("${app.sql-stats.statement-budget:20}")
+    private int statementBudget;
+
+    @Value("${app.sql-stats.expose-header:false}")
+    private boolean exposeHeader;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        SqlStatementStats stats = SqlStatementStats.begin();
+        // Headers must be written before the body is committed, so buffer the body when exposing them;
+        // never for event streams, whose body is written long after this request thread has returned
+        ContentCachingResponseWrapper cachingResponse = exposeHeader && !isEventStream(request)
+                ? new ContentCachingResponseWrapper(response) : null;
+
+        try {
+            filterChain.doFilter(request, cachingResponse != null ? cachingResponse : response);
+        } finally {
+            SqlStatementStats.end();
+
+            if (stats.getStatementCount() > statementBudget) {
+                System.err.println("SQL statement budget exceeded: " + request.getMethod() + " " + request.getRequestURI()
+                        + " issued " + stats.getStatementCount() + " statements (budget " + statementBudget + ") in "
+                        + stats.getElapsedMillis() + " ms");
+            }
+
+            if (cachingResponse != null) {
+                cachingResponse.setHeader(STATEMENT_COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+                cachingResponse.setHeader(STATEMENT_TIME_HEADER, String.valueOf(stats.getElapsedMillis()));
+                cachingResponse.copyBodyToResponse();
+            }
+        }
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE))
+                || request.getRequestURI().endsWith("/stream");
+    }
+}
@@ -0,0 +1,47 @@
+package com.industryE.ecommerce.config;
+
+/**
+ * Per-thread counter of JDBC statements executed while serving the current request.
+ * Populated by the datasource proxy and reset by {@link SqlStatementFilter} at the start of every request.
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long elapsedNanos;
+
+    private SqlStatementStats() {}
+
+    // Starts a fresh counter for the calling thread
+    public static SqlStatementStats begin() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    // Returns the counter for the calling thread, or null when no request is being tracked
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedNanos) {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statementCount++;
+            stats.elapsedNanos += elapsedNanos;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+}
@@ -1,9 +1,13 @@
 package com.industryE.ecommerce.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,15 +18,30 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.industryE.ecommerce.Enum.PaymentStatus;
+import com.industryE.ecommerce.Enum.Status;
 import com.industryE.ecommerce.dto.AdminStatsResponse;
+import com.industryE.ecommerce.dto.BulkOrderStatusRequest;
+import com.industryE.ecommerce.dto.BulkOrderStatusResponse;
+import com.industryE.ecommerce.dto.InventoryPointInTimeResponse;
+import com.industryE.ecommerce.dto.InventoryShardsResponse;
 import com.industryE.ecommerce.dto.OrderResponse;
 import com.industryE.ecommerce.dto.ProductDTO;
 import com.industryE.ecommerce.dto.UserResponse;
+import com.industryE.ecommerce.entity.InventoryJournalEntry;
 import com.industryE.ecommerce.service.AdminService;
+import com.industryE.ecommerce.service.BackorderService;
+import com.industryE.ecommerce.service.InventoryImportService;
+import com.industryE.ecommerce.service.InventoryJournalService;
+import com.industryE.ecommerce.service.InventoryShardService;
+import com.industryE.ecommerce.service.OptimisticRetryService;
+import com.industryE.ecommerce.service.OrderReservationService;
+import com.industryE.ecommerce.service.ProductSizeInventoryService;
 
 import jakarta.validation.Valid;
 
@@ -35,6 +54,27 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private OrderReservationService orderReservationService;
+
+    @Autowired
+    private InventoryJournalService inventoryJournalService;
+
+    @Autowired
+    private InventoryShardService inventoryShardService;
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private InventoryImportService inventoryImportService;
+
+    @Autowired
+    private BackorderService backorderService;
+
     // Dashboard Statistics
     @GetMapping("/stats")
     public ResponseEntity<AdminStatsResponse> getDashboardStats() {
@@ -61,7 +101,7 @@ public class AdminController {
     @PutMapping("/products/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductDTO productDTO) {
         try {
-            ProductDTO updatedProduct = adminService.updateProduct(id, productDTO);
+            ProductDTO updatedProduct = optimisticRetryService.execute("product.update", () -> adminService.updateProduct(id, productDTO));
             return ResponseEntity.ok(updatedProduct);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -131,6 +171,55 @@ public class AdminController {
     }
 
 
+    // Cancelling releases the order's reserved stock; delivering takes it out of stock
+    @PutMapping("/orders/{id}/status")
+    public ResponseEntity<?> updateOrderStatus(@PathVariable Long id, @RequestParam String status) {
+        try {
+            Status newStatus = Status.valueOf(status.toUpperCase());
+            OrderResponse order = optimisticRetryService.execute("order.status", () -> adminService.updateOrderStatusByAdmin(id, newStatus));
+            return ResponseEntity.ok(order);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Invalid order status: " + status));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // One status for many orders; each id comes back with its own outcome
+    @PostMapping("/orders/bulk-status")
+    public ResponseEntity<?> bulkUpdateOrderStatus(@Valid @RequestBody BulkOrderStatusRequest request) {
+        try {
+            BulkOrderStatusResponse response = orderReservationService.bulkChangeStatus(
+                    request.getOrderIds(), Status.valueOf(request.getStatus().toUpperCase()));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Invalid order status: " + request.getStatus()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/orders/{id}/payment-status")
+    public ResponseEntity<?> updateOrderPaymentStatus(@PathVariable Long id, @RequestParam String paymentStatus) {
+        try {
+            // The admin UI labels a completed payment "PAID"
+            String value = paymentStatus.toUpperCase();
+            PaymentStatus status = "PAID".equals(value) ? PaymentStatus.COMPLETED : PaymentStatus.valueOf(value);
+            OrderResponse order = adminService.updateOrderPaymentStatus(id, status);
+            return ResponseEntity.ok(order);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Invalid payment status: " + paymentStatus));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/orders/status/{status}")
     public ResponseEntity<List<OrderResponse>> getOrdersByStatus(@PathVariable String status) {
         try {
@@ -185,8 +274,10 @@ public class AdminController {
                                            @PathVariable String size, 
                                            @RequestParam Integer quantity) {
         try {
-            adminService.updateInventory(productId, size, quantity);
-            return ResponseEntity.ok(Map.of("message", "Inventory updated successfully"));
+            optimisticRetryService.run("inventory.update", () -> adminService.updateInventory(productId, size, quantity));
+            // Committed; new stock goes to anyone waiting on the size before it is back on sale
+            int allocated = backorderService.allocate(Map.of(productId, List.of(size)));
+            return ResponseEntity.ok(Map.of("message", "Inventory updated successfully", "backordersAllocated", allocated));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
@@ -195,4 +286,81 @@ public class AdminController {
                     .body(Map.of("error", "Failed to update inventory: " + e.getMessage()));
         }
     }
+
+    // Warehouse restocks: a CSV or NDJSON file of productId/size/quantity rows, streamed and applied in chunks
+    @PostMapping("/inventory/import")
+    public ResponseEntity<?> importInventory(InputStream body,
+                                             @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                             @RequestParam(defaultValue = "set") String mode) {
+        if (!mode.equalsIgnoreCase("set") && !mode.equalsIgnoreCase("add")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Mode must be set or add"));
+        }
+        boolean ndjson = contentType != null && contentType.toLowerCase().contains("json");
+        try {
+            return ResponseEntity.ok(inventoryImportService.importStream(body, ndjson, mode.equalsIgnoreCase("add")));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Failed to read import: " + e.getMessage()));
+        }
+    }
+
+    // Hot sizes: stock split over shard counters so flash-sale checkouts don't queue on the product row
+    @PutMapping("/products/{productId}/inventory/{size}/shards")
+    public ResponseEntity<?> enableInventoryShards(@PathVariable Long productId,
+                                                   @PathVariable String size,
+                                                   @RequestParam(required = false) Integer count) {
+        try {
+            optimisticRetryService.run("inventory.shards", () -> sizeInventoryService.enableShards(productId, size, count));
+            return ResponseEntity.ok(Map.of("message", "Size " + size + " is now sharded"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/products/{productId}/inventory/{size}/shards")
+    public ResponseEntity<?> disableInventoryShards(@PathVariable Long productId, @PathVariable String size) {
+        try {
+            optimisticRetryService.run("inventory.shards", () -> sizeInventoryService.disableShards(productId, size));
+            return ResponseEntity.ok(Map.of("message", "Size " + size + " is no longer sharded"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/inventory/shards")
+    public ResponseEntity<List<InventoryShardsResponse>> getInventoryShards() {
+        return ResponseEntity.ok(inventoryShardService.getAllLevels());
+    }
+
+    // Stock rebuilt from the inventory journal; without a time, the current stock checked against the product
+    @GetMapping("/products/{productId}/inventory/as-of")
+    public ResponseEntity<?> getInventoryAsOf(@PathVariable Long productId,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            InventoryPointInTimeResponse stock = at != null
+                    ? inventoryJournalService.getStockAt(productId, at)
+                    : inventoryJournalService.getCurrentStock(productId);
+            return ResponseEntity.ok(stock);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/products/{productId}/inventory/journal")
+    public ResponseEntity<?> getInventoryJournal(@PathVariable Long productId,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        try {
+            List<InventoryJournalEntry> entries = inventoryJournalService.getEntries(productId, since, limit);
+            return ResponseEntity.ok(entries);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to fetch inventory journal: " + e.getMessage()));
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package com.industryE.ecommerce.controller;
 
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -14,11 +18,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.industryE.ecommerce.dto.AddToCartRequest;
+import com.industryE.ecommerce.dto.CartBatchRequest;
+import com.industryE.ecommerce.dto.CartDeltaResponse;
 import com.industryE.ecommerce.dto.CartResponse;
+import com.industryE.ecommerce.dto.GuestCartRequest;
+import com.industryE.ecommerce.dto.GuestCartResponse;
 import com.industryE.ecommerce.dto.UpdateCartItemRequest;
 import com.industryE.ecommerce.entity.User;
 import com.industryE.ecommerce.security.JwtTokenProvider;
 import com.industryE.ecommerce.service.CartService;
+import com.industryE.ecommerce.service.OptimisticRetryService;
 import com.industryE.ecommerce.service.UserService;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,6 +40,9 @@ public class CartController {
     
     @Autowired
     private CartService cartService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
     
     @Autowired
     private UserService userService;
@@ -42,8 +54,18 @@ public class CartController {
     public ResponseEntity<?> getCart(HttpServletRequest httpRequest) {
         try {
             User user = getUserFromToken(httpRequest);
+            
+            // Cheap version probe: skip loading the cart lines if the client copy is current
+            String ifNoneMatch = httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null) {
+                Optional<Long> version = cartService.getCartVersion(user);
+                if (version.isPresent() && ifNoneMatch.equals(toETag(version.get()))) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ifNoneMatch).build();
+                }
+            }
+            
             CartResponse cart = cartService.getCartByUser(user);
-            return ResponseEntity.ok(cart);
+            return ResponseEntity.ok().eTag(toETag(cart.getVersion())).body(cart);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Failed to get cart: " + e.getMessage()));
@@ -55,8 +77,8 @@ public class CartController {
                                      HttpServletRequest httpRequest) {
         try {
             User user = getUserFromToken(httpRequest);
-            CartResponse cart = cartService.addToCart(user, request);
-            return ResponseEntity.ok(cart);
+            CartDeltaResponse delta = optimisticRetryService.execute("cart.add", () -> cartService.addToCart(user, request));
+            return ResponseEntity.ok().eTag(toETag(delta.getVersion())).body(delta);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ErrorResponse(e.getMessage()));
@@ -72,8 +94,8 @@ public class CartController {
                                           HttpServletRequest httpRequest) {
         try {
             User user = getUserFromToken(httpRequest);
-            CartResponse cart = cartService.updateCartItem(user, itemId, request);
-            return ResponseEntity.ok(cart);
+            CartDeltaResponse delta = optimisticRetryService.execute("cart.update", () -> cartService.updateCartItem(user, itemId, request));
+            return ResponseEntity.ok().eTag(toETag(delta.getVersion())).body(delta);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ErrorResponse(e.getMessage()));
@@ -83,6 +105,38 @@ public class CartController {
         }
     }
 
+    // Ordered batch of add/update/remove/select operations, applied all-or-nothing in one round trip
+    @PatchMapping
+    public ResponseEntity<?> applyBatch(@Valid @RequestBody CartBatchRequest request,
+                                        HttpServletRequest httpRequest) {
+        try {
+            User user = getUserFromToken(httpRequest);
+            CartResponse cart = optimisticRetryService.execute("cart.batch", () -> cartService.applyBatch(user, request));
+            return ResponseEntity.ok().eTag(toETag(cart.getVersion())).body(cart);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to update cart: " + e.getMessage()));
+        }
+    }
+
+    // Public: guest carts live in a signed token on the client and are merged into the cart at login
+    @PostMapping("/guest")
+    public ResponseEntity<?> updateGuestCart(@Valid @RequestBody GuestCartRequest request) {
+        try {
+            GuestCartResponse guestCart = cartService.updateGuestCart(request);
+            return ResponseEntity.ok(guestCart);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to update guest cart: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/items/{itemId}/select")
     public ResponseEntity<?> toggleSelect(
             @PathVariable Long itemId,
@@ -90,8 +144,8 @@ public class CartController {
             HttpServletRequest request
     ) {
         User user = getUserFromToken(request);
-        CartResponse resp = cartService.selectItem(user, itemId, selected);
-        return ResponseEntity.ok(resp);
+        CartDeltaResponse delta = cartService.selectItem(user, itemId, selected);
+        return ResponseEntity.ok().eTag(toETag(delta.getVersion())).body(delta);
     }
 
     
@@ -100,8 +154,8 @@ public class CartController {
                                           HttpServletRequest httpRequest) {
         try {
             User user = getUserFromToken(httpRequest);
-            CartResponse cart = cartService.removeFromCart(user, itemId);
-            return ResponseEntity.ok(cart);
+            CartDeltaResponse delta = optimisticRetryService.execute("cart.remove", () -> cartService.removeFromCart(user, itemId));
+            return ResponseEntity.ok().eTag(toETag(delta.getVersion())).body(delta);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ErrorResponse(e.getMessage()));
@@ -115,7 +169,7 @@ public class CartController {
     public ResponseEntity<?> clearCart(HttpServletRequest httpRequest) {
         try {
             User user = getUserFromToken(httpRequest);
-            cartService.clearCart(user);
+            optimisticRetryService.run("cart.clear", () -> cartService.clearCart(user));
             return ResponseEntity.ok(new SuccessResponse("Cart cleared successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -123,6 +177,10 @@ public class CartController {
         }
     }
     
+    private String toETag(Long version) {
+        return "\"" + version + "\"";
+    }
+    
     private User getUserFromToken(HttpServletRequest request) {
         String token = extractTokenFromRequest(request);
         String email = jwtTokenProvider.getUsernameFromToken(token);
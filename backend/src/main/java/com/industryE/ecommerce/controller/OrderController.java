@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,14 +15,20 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.industryE.ecommerce.dto.BackorderRequest;
+import com.industryE.ecommerce.dto.BackorderResponse;
+import com.industryE.ecommerce.dto.CheckoutRequest;
 import com.industryE.ecommerce.dto.CreateOrderRequest;
 import com.industryE.ecommerce.dto.OrderResponse;
 import com.industryE.ecommerce.entity.User;
 import com.industryE.ecommerce.security.JwtTokenProvider;
+import com.industryE.ecommerce.service.BackorderService;
+import com.industryE.ecommerce.service.OptimisticRetryService;
 import com.industryE.ecommerce.service.OrderService;
 import com.industryE.ecommerce.service.UserService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -30,6 +37,12 @@ public class OrderController {
     
     @Autowired
     private OrderService orderService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private BackorderService backorderService;
     
     @Autowired
     private UserService userService;
@@ -52,7 +65,7 @@ public class OrderController {
             }
             
             // Create order for the authenticated user only
-            OrderResponse order = orderService.createOrder(request, user);
+            OrderResponse order = optimisticRetryService.execute("order.create", () -> orderService.createOrder(request, user));
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -60,6 +73,32 @@ public class OrderController {
         }
     }
     
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@RequestBody CheckoutRequest request,
+                                      HttpServletRequest httpRequest) {
+        try {
+            // Extract and validate user from JWT token
+            String token = extractTokenFromRequest(httpRequest);
+            String email = jwtTokenProvider.getUsernameFromToken(token);
+            User user = userService.findByEmail(email);
+            
+            if (user == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("User not found"));
+            }
+            
+            // Order is built from the user's selected cart lines
+            OrderResponse order = optimisticRetryService.execute("order.checkout", () -> orderService.checkout(request, user));
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("Checkout failed: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Checkout failed: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/user")
     public ResponseEntity<?> getUserOrders(HttpServletRequest httpRequest) {
         try {
@@ -118,7 +157,7 @@ public class OrderController {
             }
             
             // Mark order as completed/received for the authenticated user
-            OrderResponse order = orderService.markOrderAsReceived(orderId, user.getId());
+            OrderResponse order = optimisticRetryService.execute("order.status", () -> orderService.markOrderAsReceived(orderId, user.getId()));
             return ResponseEntity.ok(order);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -126,6 +165,67 @@ public class OrderController {
         }
     }
     
+    // Backorders: queue for a sold-out size and get an order placed automatically when it is restocked
+    @PostMapping("/backorders")
+    public ResponseEntity<?> placeBackorder(@Valid @RequestBody BackorderRequest request, HttpServletRequest httpRequest) {
+        try {
+            String token = extractTokenFromRequest(httpRequest);
+            String email = jwtTokenProvider.getUsernameFromToken(token);
+            User user = userService.findByEmail(email);
+
+            if (user == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("User not found"));
+            }
+
+            BackorderResponse backorder = backorderService.placeBackorder(request, user);
+            return ResponseEntity.status(HttpStatus.CREATED).body(backorder);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("Backorder failed: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/backorders")
+    public ResponseEntity<?> getUserBackorders(HttpServletRequest httpRequest) {
+        try {
+            String token = extractTokenFromRequest(httpRequest);
+            String email = jwtTokenProvider.getUsernameFromToken(token);
+            User user = userService.findByEmail(email);
+
+            if (user == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("User not found"));
+            }
+
+            List<BackorderResponse> backorders = backorderService.getUserBackorders(user.getId());
+            return ResponseEntity.ok(backorders);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to fetch backorders: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/backorders/{backorderId}")
+    public ResponseEntity<?> cancelBackorder(@PathVariable Long backorderId, HttpServletRequest httpRequest) {
+        try {
+            String token = extractTokenFromRequest(httpRequest);
+            String email = jwtTokenProvider.getUsernameFromToken(token);
+            User user = userService.findByEmail(email);
+
+            if (user == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("User not found"));
+            }
+
+            backorderService.cancelBackorder(backorderId, user.getId());
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
     private String extractTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -1,9 +1,11 @@
 package com.industryE.ecommerce.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,9 +17,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import com.industryE.ecommerce.dto.ProductAvailabilityRequest;
 import com.industryE.ecommerce.dto.ProductDTO;
+import com.industryE.ecommerce.service.InventoryFeedService;
+import com.industryE.ecommerce.service.OptimisticRetryService;
+import com.industryE.ecommerce.service.ProductAvailabilityService;
 import com.industryE.ecommerce.service.ProductService;
+import com.industryE.ecommerce.service.ProductSizeInventoryService;
 
 import jakarta.validation.Valid;
 
@@ -29,6 +37,18 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private ProductAvailabilityService availabilityService;
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private InventoryFeedService feedService;
+
     @GetMapping
     public ResponseEntity<List<ProductDTO>> getAllProducts() {
         return ResponseEntity.ok(productService.getAllProducts());
@@ -54,6 +74,30 @@ public class ProductController {
         return ResponseEntity.ok(productService.searchProducts(keyword));
     }
 
+    // Listing badges for a page of products, answered from the precomputed availability index
+    @PostMapping("/availability")
+    public ResponseEntity<?> getAvailability(@Valid @RequestBody ProductAvailabilityRequest request) {
+        try {
+            return ResponseEntity.ok(availabilityService.lookup(request.getProductIds(), request.getSizes()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Live size availability for an open product page, as Server-Sent Events: a snapshot, then changes
+    @GetMapping(value = "/{id}/inventory/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamInventory(@PathVariable Long id) {
+        Map<String, Integer> available = sizeInventoryService.getAvailableFromReadModel(id);
+        if (available == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(feedService.subscribe(id, available));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<ProductDTO> createProduct(@Valid @RequestBody ProductDTO productDTO) {
         try {
@@ -67,7 +111,7 @@ public class ProductController {
     @PutMapping("/{id}")
     public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductDTO productDTO) {
         try {
-            ProductDTO updatedProduct = productService.updateProduct(id, productDTO);
+            ProductDTO updatedProduct = optimisticRetryService.execute("product.update", () -> productService.updateProduct(id, productDTO));
             return ResponseEntity.ok(updatedProduct);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.industryE.ecommerce.dto.ReviewDTO;
 import com.industryE.ecommerce.entity.User;
 import com.industryE.ecommerce.repository.UserRepository;
+import com.industryE.ecommerce.service.OptimisticRetryService;
 import com.industryE.ecommerce.service.ReviewService;
 
 @RestController
@@ -28,6 +29,9 @@ public class ReviewController {
 
     @Autowired
     private ReviewService reviewService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
     
     @Autowired
     private UserRepository userRepository;
@@ -47,7 +51,8 @@ public class ReviewController {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            ReviewDTO savedReview = reviewService.addReview(user.getId(), reviewDto.getProductId(), reviewDto);
+            ReviewDTO savedReview = optimisticRetryService.execute("review.add",
+                    () -> reviewService.addReview(user.getId(), reviewDto.getProductId(), reviewDto));
             return ResponseEntity.status(HttpStatus.CREATED).body(savedReview);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to add review: " + e.getMessage());
@@ -75,7 +80,8 @@ public class ReviewController {
             
             System.out.println("Found user with ID: " + user.getId());
             
-            ReviewDTO updatedReview = reviewService.updateReview(user.getId(), reviewId, reviewDto);
+            ReviewDTO updatedReview = optimisticRetryService.execute("review.update",
+                    () -> reviewService.updateReview(user.getId(), reviewId, reviewDto));
             return ResponseEntity.ok(updatedReview);
         } catch (Exception e) {
             System.out.println("Error updating review: " + e.getMessage());
@@ -0,0 +1,43 @@
+package com.industryE.ecommerce.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Body of POST /api/orders/backorders: a sold-out size to queue for, with the payment and shipping
+ * details the order will be placed with once stock arrives.
+ */
+public class BackorderRequest {
+    @NotNull(message = "Product id is required")
+    private Long productId;
+
+    @NotBlank(message = "Size is required")
+    private String size;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    private String paymentMethod;
+    private CreateOrderRequest.ShippingInfo shippingInfo;
+
+    // Constructors
+    public BackorderRequest() {}
+
+    // Getters and setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public CreateOrderRequest.ShippingInfo getShippingInfo() { return shippingInfo; }
+    public void setShippingInfo(CreateOrderRequest.ShippingInfo shippingInfo) { this.shippingInfo = shippingInfo; }
+}
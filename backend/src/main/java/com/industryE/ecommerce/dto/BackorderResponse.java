@@ -0,0 +1,57 @@
+package com.industryE.ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.industryE.ecommerce.Enum.BackorderStatus;
+
+/**
+ * A customer's backorder. Waiting ones carry their place in the size's queue (1 is next); allocated
+ * ones the order that was placed for them.
+ */
+public class BackorderResponse {
+    private Long id;
+    private Long productId;
+    private String size;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private BackorderStatus status;
+    private Long queuePosition;
+    private Long orderId;
+    private LocalDateTime createdAt;
+    private LocalDateTime allocatedAt;
+
+    // Constructors
+    public BackorderResponse() {}
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public BackorderStatus getStatus() { return status; }
+    public void setStatus(BackorderStatus status) { this.status = status; }
+
+    public Long getQueuePosition() { return queuePosition; }
+    public void setQueuePosition(Long queuePosition) { this.queuePosition = queuePosition; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getAllocatedAt() { return allocatedAt; }
+    public void setAllocatedAt(LocalDateTime allocatedAt) { this.allocatedAt = allocatedAt; }
+}
@@ -0,0 +1,27 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Body of POST /api/admin/orders/bulk-status: one target status applied to many orders.
+ */
+public class BulkOrderStatusRequest {
+    @NotEmpty(message = "At least one order id is required")
+    private List<Long> orderIds;
+
+    @NotNull(message = "Status is required")
+    private String status;
+
+    // Constructors
+    public BulkOrderStatusRequest() {}
+
+    // Getters and setters
+    public List<Long> getOrderIds() { return orderIds; }
+    public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,64 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+import com.industryE.ecommerce.Enum.OrderTransitionOutcome;
+import com.industryE.ecommerce.Enum.Status;
+
+/**
+ * Result of a bulk status change: how many orders moved, plus the outcome for every requested id.
+ */
+public class BulkOrderStatusResponse {
+    private Status status;
+    private int requested;
+    private int updated;
+    private List<OrderOutcome> results;
+
+    // Constructors
+    public BulkOrderStatusResponse() {}
+
+    public BulkOrderStatusResponse(Status status, int requested, int updated, List<OrderOutcome> results) {
+        this.status = status;
+        this.requested = requested;
+        this.updated = updated;
+        this.results = results;
+    }
+
+    // Getters and setters
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public List<OrderOutcome> getResults() { return results; }
+    public void setResults(List<OrderOutcome> results) { this.results = results; }
+
+    public static class OrderOutcome {
+        private Long orderId;
+        private OrderTransitionOutcome outcome;
+        private Status previousStatus;
+
+        // Constructors
+        public OrderOutcome() {}
+
+        public OrderOutcome(Long orderId, OrderTransitionOutcome outcome, Status previousStatus) {
+            this.orderId = orderId;
+            this.outcome = outcome;
+            this.previousStatus = previousStatus;
+        }
+
+        // Getters and setters
+        public Long getOrderId() { return orderId; }
+        public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+        public OrderTransitionOutcome getOutcome() { return outcome; }
+        public void setOutcome(OrderTransitionOutcome outcome) { this.outcome = outcome; }
+
+        public Status getPreviousStatus() { return previousStatus; }
+        public void setPreviousStatus(Status previousStatus) { this.previousStatus = previousStatus; }
+    }
+}
@@ -0,0 +1,57 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Ordered list of cart operations applied by PATCH /api/cart in a single transaction.
+ * Supported ops: "add" (productId, size, quantity), "update" (itemId, quantity),
+ * "remove" (itemId) and "select" (itemId, selected).
+ */
+public class CartBatchRequest {
+    @NotEmpty(message = "At least one operation is required")
+    @Valid
+    private List<CartOperation> operations;
+
+    // Constructors
+    public CartBatchRequest() {}
+
+    // Getters and setters
+    public List<CartOperation> getOperations() { return operations; }
+    public void setOperations(List<CartOperation> operations) { this.operations = operations; }
+
+    public static class CartOperation {
+        @NotNull(message = "Operation type is required")
+        private String op;
+        private Long itemId;
+        private Long productId;
+        private String size;
+        private Integer quantity;
+        private Boolean selected;
+
+        // Constructors
+        public CartOperation() {}
+
+        // Getters and setters
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+
+        public Long getItemId() { return itemId; }
+        public void setItemId(Long itemId) { this.itemId = itemId; }
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public String getSize() { return size; }
+        public void setSize(String size) { this.size = size; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+        public Boolean getSelected() { return selected; }
+        public void setSelected(Boolean selected) { this.selected = selected; }
+    }
+}
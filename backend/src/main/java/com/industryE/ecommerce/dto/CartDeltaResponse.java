@@ -0,0 +1,51 @@
+package com.industryE.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Compact result of a single cart mutation: the changed (or removed) line plus the new cart totals.
+ * Clients apply it to their local copy; if baseVersion differs from the version they last saw,
+ * the cart changed elsewhere and should be reloaded with GET /api/cart.
+ */
+public class CartDeltaResponse {
+    private Long cartId;
+    private Long baseVersion;
+    private Long version;
+    private CartResponse.CartItemResponse item; // null when the line was removed
+    private Long removedItemId;
+    private Long itemCount;
+    private Long totalQuantity;
+    private BigDecimal totalAmount;
+    private BigDecimal selectedAmount;
+
+    // Constructors
+    public CartDeltaResponse() {}
+
+    // Getters and setters
+    public Long getCartId() { return cartId; }
+    public void setCartId(Long cartId) { this.cartId = cartId; }
+
+    public Long getBaseVersion() { return baseVersion; }
+    public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public CartResponse.CartItemResponse getItem() { return item; }
+    public void setItem(CartResponse.CartItemResponse item) { this.item = item; }
+
+    public Long getRemovedItemId() { return removedItemId; }
+    public void setRemovedItemId(Long removedItemId) { this.removedItemId = removedItemId; }
+
+    public Long getItemCount() { return itemCount; }
+    public void setItemCount(Long itemCount) { this.itemCount = itemCount; }
+
+    public Long getTotalQuantity() { return totalQuantity; }
+    public void setTotalQuantity(Long totalQuantity) { this.totalQuantity = totalQuantity; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+    public BigDecimal getSelectedAmount() { return selectedAmount; }
+    public void setSelectedAmount(BigDecimal selectedAmount) { this.selectedAmount = selectedAmount; }
+}
@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.industryE.ecommerce.Enum.CartLineAvailability;
+
 public class CartResponse {
     private Long id;
     private Long userId;
@@ -11,6 +13,7 @@ public class CartResponse {
     private BigDecimal totalAmount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
     
     // Constructors
     public CartResponse() {}
@@ -34,6 +37,9 @@ public class CartResponse {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     public static class CartItemResponse {
         private Long id;
         private Long productId;
@@ -43,6 +49,12 @@ public class CartResponse {
         private BigDecimal unitPrice;
         private Integer quantity;
         private BigDecimal totalPrice;
+        private boolean selected;
+        // Revalidation against current stock and price (full cart responses only)
+        private CartLineAvailability availability;
+        private Integer availableQuantity;
+        private BigDecimal currentUnitPrice;
+        private BigDecimal priceDelta;
         
         // Constructors
         public CartItemResponse() {}
@@ -71,5 +83,20 @@ public class CartResponse {
         
         public BigDecimal getTotalPrice() { return totalPrice; }
         public void setTotalPrice(BigDecimal totalPrice) { this.totalPrice = totalPrice; }
+        
+        public boolean isSelected() { return selected; }
+        public void setSelected(boolean selected) { this.selected = selected; }
+        
+        public CartLineAvailability getAvailability() { return availability; }
+        public void setAvailability(CartLineAvailability availability) { this.availability = availability; }
+        
+        public Integer getAvailableQuantity() { return availableQuantity; }
+        public void setAvailableQuantity(Integer availableQuantity) { this.availableQuantity = availableQuantity; }
+        
+        public BigDecimal getCurrentUnitPrice() { return currentUnitPrice; }
+        public void setCurrentUnitPrice(BigDecimal currentUnitPrice) { this.currentUnitPrice = currentUnitPrice; }
+        
+        public BigDecimal getPriceDelta() { return priceDelta; }
+        public void setPriceDelta(BigDecimal priceDelta) { this.priceDelta = priceDelta; }
     }
 }
@@ -0,0 +1,20 @@
+package com.industryE.ecommerce.dto;
+
+/**
+ * Body of POST /api/orders/checkout. Items, prices and the total come from the user's
+ * selected cart lines on the server, so only payment and shipping details are sent.
+ */
+public class CheckoutRequest {
+    private String paymentMethod;
+    private CreateOrderRequest.ShippingInfo shippingInfo;
+
+    // Constructors
+    public CheckoutRequest() {}
+
+    // Getters and setters
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public CreateOrderRequest.ShippingInfo getShippingInfo() { return shippingInfo; }
+    public void setShippingInfo(CreateOrderRequest.ShippingInfo shippingInfo) { this.shippingInfo = shippingInfo; }
+}
@@ -0,0 +1,38 @@
+package com.industryE.ecommerce.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Sets one line of a guest cart. The current token (if any) is sent back with the change;
+ * a quantity of 0 removes the line.
+ */
+public class GuestCartRequest {
+    private String token;
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    @NotNull(message = "Size is required")
+    private String size;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+
+    // Constructors
+    public GuestCartRequest() {}
+
+    // Getters and setters
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
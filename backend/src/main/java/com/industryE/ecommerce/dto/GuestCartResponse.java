@@ -0,0 +1,48 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+public class GuestCartResponse {
+    private String token;
+    private List<GuestCartLine> items;
+
+    // Constructors
+    public GuestCartResponse() {}
+
+    public GuestCartResponse(String token, List<GuestCartLine> items) {
+        this.token = token;
+        this.items = items;
+    }
+
+    // Getters and setters
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public List<GuestCartLine> getItems() { return items; }
+    public void setItems(List<GuestCartLine> items) { this.items = items; }
+
+    public static class GuestCartLine {
+        private Long productId;
+        private String size;
+        private Integer quantity;
+
+        // Constructors
+        public GuestCartLine() {}
+
+        public GuestCartLine(Long productId, String size, Integer quantity) {
+            this.productId = productId;
+            this.size = size;
+            this.quantity = quantity;
+        }
+
+        // Getters and setters
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public String getSize() { return size; }
+        public void setSize(String size) { this.size = size; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+}
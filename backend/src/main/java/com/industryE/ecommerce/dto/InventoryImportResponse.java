@@ -0,0 +1,72 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * Result of a streamed inventory import: row counts, timing, and the rows that were not applied
+ * with the reason (the first few hundred; {@code rowsFailed} counts them all).
+ */
+public class InventoryImportResponse {
+    private long rowsRead;
+    private long rowsApplied;
+    private long rowsFailed;
+    private int chunks;
+    private long elapsedMs;
+    private long backordersAllocated;
+    private List<RowError> errors;
+
+    // Constructors
+    public InventoryImportResponse() {}
+
+    public InventoryImportResponse(long rowsRead, long rowsApplied, long rowsFailed, int chunks, long elapsedMs,
+                                   List<RowError> errors) {
+        this.rowsRead = rowsRead;
+        this.rowsApplied = rowsApplied;
+        this.rowsFailed = rowsFailed;
+        this.chunks = chunks;
+        this.elapsedMs = elapsedMs;
+        this.errors = errors;
+    }
+
+    // Getters and setters
+    public long getRowsRead() { return rowsRead; }
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getRowsApplied() { return rowsApplied; }
+    public void setRowsApplied(long rowsApplied) { this.rowsApplied = rowsApplied; }
+
+    public long getRowsFailed() { return rowsFailed; }
+    public void setRowsFailed(long rowsFailed) { this.rowsFailed = rowsFailed; }
+
+    public long getBackordersAllocated() { return backordersAllocated; }
+    public void setBackordersAllocated(long backordersAllocated) { this.backordersAllocated = backordersAllocated; }
+
+    public int getChunks() { return chunks; }
+    public void setChunks(int chunks) { this.chunks = chunks; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+
+    public static class RowError {
+        private long line;
+        private String message;
+
+        // Constructors
+        public RowError() {}
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        // Getters and setters
+        public long getLine() { return line; }
+        public void setLine(long line) { this.line = line; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
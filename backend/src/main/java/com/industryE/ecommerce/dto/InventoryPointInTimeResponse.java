@@ -0,0 +1,83 @@
+package com.industryE.ecommerce.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A product's stock per size as it stood at a point in time, rebuilt from the latest snapshot
+ * before that time plus the journal entries after it.
+ */
+public class InventoryPointInTimeResponse {
+    private Long productId;
+    private LocalDateTime at;
+    private LocalDateTime snapshotCoversUntil; // null when rebuilt from the start of the journal
+    private long entriesApplied;
+    private List<SizeLevel> sizes;
+    private Boolean matchesCurrent; // only set for rebuilds of the current stock
+
+    // Constructors
+    public InventoryPointInTimeResponse() {}
+
+    public InventoryPointInTimeResponse(Long productId, LocalDateTime at, LocalDateTime snapshotCoversUntil,
+                                        long entriesApplied, List<SizeLevel> sizes) {
+        this.productId = productId;
+        this.at = at;
+        this.snapshotCoversUntil = snapshotCoversUntil;
+        this.entriesApplied = entriesApplied;
+        this.sizes = sizes;
+    }
+
+    // Getters and setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public LocalDateTime getAt() { return at; }
+    public void setAt(LocalDateTime at) { this.at = at; }
+
+    public LocalDateTime getSnapshotCoversUntil() { return snapshotCoversUntil; }
+    public void setSnapshotCoversUntil(LocalDateTime snapshotCoversUntil) { this.snapshotCoversUntil = snapshotCoversUntil; }
+
+    public long getEntriesApplied() { return entriesApplied; }
+    public void setEntriesApplied(long entriesApplied) { this.entriesApplied = entriesApplied; }
+
+    public List<SizeLevel> getSizes() { return sizes; }
+    public void setSizes(List<SizeLevel> sizes) { this.sizes = sizes; }
+
+    public Boolean getMatchesCurrent() { return matchesCurrent; }
+    public void setMatchesCurrent(Boolean matchesCurrent) { this.matchesCurrent = matchesCurrent; }
+
+    public static class SizeLevel {
+        private String size;
+        private int quantity;
+        private int reserved;
+        private int held;
+        private int available;
+
+        // Constructors
+        public SizeLevel() {}
+
+        public SizeLevel(String size, int quantity, int reserved, int held) {
+            this.size = size;
+            this.quantity = quantity;
+            this.reserved = reserved;
+            this.held = held;
+            this.available = quantity - reserved - held;
+        }
+
+        // Getters and setters
+        public String getSize() { return size; }
+        public void setSize(String size) { this.size = size; }
+
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+
+        public int getReserved() { return reserved; }
+        public void setReserved(int reserved) { this.reserved = reserved; }
+
+        public int getHeld() { return held; }
+        public void setHeld(int held) { this.held = held; }
+
+        public int getAvailable() { return available; }
+        public void setAvailable(int available) { this.available = available; }
+    }
+}
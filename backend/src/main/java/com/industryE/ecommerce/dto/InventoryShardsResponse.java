@@ -0,0 +1,36 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * A hot size and the stock left in each of its shard counters.
+ */
+public class InventoryShardsResponse {
+    private Long productId;
+    private String size;
+    private int available;
+    private List<Integer> shards;
+
+    // Constructors
+    public InventoryShardsResponse() {}
+
+    public InventoryShardsResponse(Long productId, String size, List<Integer> shards) {
+        this.productId = productId;
+        this.size = size;
+        this.shards = shards;
+        this.available = shards.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Getters and setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public int getAvailable() { return available; }
+    public void setAvailable(int available) { this.available = available; }
+
+    public List<Integer> getShards() { return shards; }
+    public void setShards(List<Integer> shards) { this.shards = shards; }
+}
@@ -12,6 +12,9 @@ public class LoginRequest {
     @NotBlank(message = "Password is required")
     private String password;
     
+    // Optional signed guest cart to merge into the user's cart
+    private String guestCartToken;
+    
     // Constructors
     public LoginRequest() {}
     
@@ -36,4 +39,12 @@ public class LoginRequest {
     public void setPassword(String password) {
         this.password = password;
     }
+    
+    public String getGuestCartToken() {
+        return guestCartToken;
+    }
+    
+    public void setGuestCartToken(String guestCartToken) {
+        this.guestCartToken = guestCartToken;
+    }
 }
@@ -0,0 +1,27 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+
+/**
+ * Body of POST /api/products/availability: the products of a listing page, optionally narrowed to
+ * the sizes the shopper filtered on.
+ */
+public class ProductAvailabilityRequest {
+    @NotEmpty(message = "At least one product id is required")
+    private List<Long> productIds;
+
+    // Optional; when empty every size of the product counts
+    private List<String> sizes;
+
+    // Constructors
+    public ProductAvailabilityRequest() {}
+
+    // Getters and setters
+    public List<Long> getProductIds() { return productIds; }
+    public void setProductIds(List<Long> productIds) { this.productIds = productIds; }
+
+    public List<String> getSizes() { return sizes; }
+    public void setSizes(List<String> sizes) { this.sizes = sizes; }
+}
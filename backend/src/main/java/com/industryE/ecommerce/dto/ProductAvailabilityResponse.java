@@ -0,0 +1,54 @@
+package com.industryE.ecommerce.dto;
+
+import java.util.List;
+
+import com.industryE.ecommerce.Enum.ProductAvailability;
+
+/**
+ * Listing badges for a batch of products, one entry per requested id in request order.
+ */
+public class ProductAvailabilityResponse {
+    private int fewLeftThreshold;
+    private List<ProductFlags> products;
+
+    // Constructors
+    public ProductAvailabilityResponse() {}
+
+    public ProductAvailabilityResponse(int fewLeftThreshold, List<ProductFlags> products) {
+        this.fewLeftThreshold = fewLeftThreshold;
+        this.products = products;
+    }
+
+    // Getters and setters
+    public int getFewLeftThreshold() { return fewLeftThreshold; }
+    public void setFewLeftThreshold(int fewLeftThreshold) { this.fewLeftThreshold = fewLeftThreshold; }
+
+    public List<ProductFlags> getProducts() { return products; }
+    public void setProducts(List<ProductFlags> products) { this.products = products; }
+
+    public static class ProductFlags {
+        private Long productId;
+        private ProductAvailability availability;
+        // Sizes with stock, among the requested ones
+        private List<String> availableSizes;
+
+        // Constructors
+        public ProductFlags() {}
+
+        public ProductFlags(Long productId, ProductAvailability availability, List<String> availableSizes) {
+            this.productId = productId;
+            this.availability = availability;
+            this.availableSizes = availableSizes;
+        }
+
+        // Getters and setters
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public ProductAvailability getAvailability() { return availability; }
+        public void setAvailability(ProductAvailability availability) { this.availability = availability; }
+
+        public List<String> getAvailableSizes() { return availableSizes; }
+        public void setAvailableSizes(List<String> availableSizes) { this.availableSizes = availableSizes; }
+    }
+}
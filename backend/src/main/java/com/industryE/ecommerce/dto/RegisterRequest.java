@@ -18,6 +18,9 @@ public class RegisterRequest {
     @Size(min = 6, message = "Password must be at least 6 characters")
     private String password;
     
+    // Optional signed guest cart to merge into the user's cart
+    private String guestCartToken;
+    
     // Constructors
     public RegisterRequest() {}
     
@@ -51,4 +54,12 @@ public class RegisterRequest {
     public void setPassword(String password) {
         this.password = password;
     }
+    
+    public String getGuestCartToken() {
+        return guestCartToken;
+    }
+    
+    public void setGuestCartToken(String guestCartToken) {
+        this.guestCartToken = guestCartToken;
+    }
 }
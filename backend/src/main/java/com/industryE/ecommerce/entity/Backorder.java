@@ -0,0 +1,150 @@
+package com.industryE.ecommerce.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import com.industryE.ecommerce.Enum.BackorderStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+// A customer's claim on a sold-out product size, queued oldest first until a restock covers it
+@Entity
+@Table(name = "backorders", indexes = {
+    @Index(name = "idx_backorders_queue", columnList = "product_id, size, status, created_at"),
+    @Index(name = "idx_backorders_user_created", columnList = "user_id, created_at")
+})
+public class Backorder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "backorders_id")
+    @SequenceGenerator(name = "backorders_id", sequenceName = "backorders_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "size", nullable = false)
+    private String size;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    // Price when the backorder was placed; the order is charged this, not the price at restock
+    @Column(name = "unit_price", precision = 10, scale = 2, nullable = false)
+    private BigDecimal unitPrice;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BackorderStatus status = BackorderStatus.WAITING;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "allocated_at")
+    private LocalDateTime allocatedAt;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // Copied onto the order when the backorder is allocated
+    @Column(name = "payment_method")
+    private String paymentMethod;
+
+    @Column(name = "shipping_first_name")
+    private String shippingFirstName;
+
+    @Column(name = "shipping_last_name")
+    private String shippingLastName;
+
+    @Column(name = "shipping_address", columnDefinition = "TEXT")
+    private String shippingAddress;
+
+    @Column(name = "shipping_city")
+    private String shippingCity;
+
+    @Column(name = "shipping_province")
+    private String shippingProvince;
+
+    @Column(name = "shipping_postal_code")
+    private String shippingPostalCode;
+
+    @Column(name = "shipping_phone")
+    private String shippingPhone;
+
+    // Constructors
+    public Backorder() {
+        // At the column's precision, so queue positions compare against what was stored
+        this.createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public BackorderStatus getStatus() { return status; }
+    public void setStatus(BackorderStatus status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getAllocatedAt() { return allocatedAt; }
+    public void setAllocatedAt(LocalDateTime allocatedAt) { this.allocatedAt = allocatedAt; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public String getShippingFirstName() { return shippingFirstName; }
+    public void setShippingFirstName(String shippingFirstName) { this.shippingFirstName = shippingFirstName; }
+
+    public String getShippingLastName() { return shippingLastName; }
+    public void setShippingLastName(String shippingLastName) { this.shippingLastName = shippingLastName; }
+
+    public String getShippingAddress() { return shippingAddress; }
+    public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
+
+    public String getShippingCity() { return shippingCity; }
+    public void setShippingCity(String shippingCity) { this.shippingCity = shippingCity; }
+
+    public String getShippingProvince() { return shippingProvince; }
+    public void setShippingProvince(String shippingProvince) { this.shippingProvince = shippingProvince; }
+
+    public String getShippingPostalCode() { return shippingPostalCode; }
+    public void setShippingPostalCode(String shippingPostalCode) { this.shippingPostalCode = shippingPostalCode; }
+
+    public String getShippingPhone() { return shippingPhone; }
+    public void setShippingPhone(String shippingPhone) { this.shippingPhone = shippingPhone; }
+}
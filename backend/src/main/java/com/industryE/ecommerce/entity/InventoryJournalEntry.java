@@ -0,0 +1,92 @@
+package com.industryE.ecommerce.entity;
+
+import java.time.LocalDateTime;
+
+import com.industryE.ecommerce.Enum.InventoryEntryType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+// One change to one product size; rows are only ever inserted
+@Entity
+@Table(name = "inventory_journal", indexes = {
+    @Index(name = "idx_inventory_journal_product_created", columnList = "product_id, created_at"),
+    @Index(name = "idx_inventory_journal_created", columnList = "created_at")
+})
+public class InventoryJournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_journal_id")
+    @SequenceGenerator(name = "inventory_journal_id", sequenceName = "inventory_journal_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "size", nullable = false)
+    private String size;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false)
+    private InventoryEntryType entryType;
+    
+    @Column(name = "quantity_delta", nullable = false)
+    private Integer quantityDelta;
+    
+    @Column(name = "reserved_delta", nullable = false)
+    private Integer reservedDelta;
+    
+    @Column(name = "held_delta", nullable = false)
+    private Integer heldDelta;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public InventoryJournalEntry() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public InventoryJournalEntry(Long productId, String size, InventoryEntryType entryType,
+                                 int quantityDelta, int reservedDelta, int heldDelta) {
+        this();
+        this.productId = productId;
+        this.size = size;
+        this.entryType = entryType;
+        this.quantityDelta = quantityDelta;
+        this.reservedDelta = reservedDelta;
+        this.heldDelta = heldDelta;
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+    
+    public InventoryEntryType getEntryType() { return entryType; }
+    public void setEntryType(InventoryEntryType entryType) { this.entryType = entryType; }
+    
+    public Integer getQuantityDelta() { return quantityDelta; }
+    public void setQuantityDelta(Integer quantityDelta) { this.quantityDelta = quantityDelta; }
+    
+    public Integer getReservedDelta() { return reservedDelta; }
+    public void setReservedDelta(Integer reservedDelta) { this.reservedDelta = reservedDelta; }
+    
+    public Integer getHeldDelta() { return heldDelta; }
+    public void setHeldDelta(Integer heldDelta) { this.heldDelta = heldDelta; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
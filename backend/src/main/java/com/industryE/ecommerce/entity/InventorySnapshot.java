@@ -0,0 +1,54 @@
+package com.industryE.ecommerce.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+// A product's inventory with every journal entry created up to coversUntil applied
+@Entity
+@Table(name = "inventory_snapshots", indexes = @Index(name = "idx_inventory_snapshots_product_covers", columnList = "product_id, covers_until"))
+public class InventorySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_snapshots_id")
+    @SequenceGenerator(name = "inventory_snapshots_id", sequenceName = "inventory_snapshots_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "covers_until", nullable = false)
+    private LocalDateTime coversUntil;
+    
+    // Same JSON format as Product.sizeInventory
+    @Column(name = "size_inventory", columnDefinition = "TEXT")
+    private String sizeInventory;
+    
+    // Constructors
+    public InventorySnapshot() {}
+    
+    public InventorySnapshot(Long productId, LocalDateTime coversUntil, String sizeInventory) {
+        this.productId = productId;
+        this.coversUntil = coversUntil;
+        this.sizeInventory = sizeInventory;
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    
+    public LocalDateTime getCoversUntil() { return coversUntil; }
+    public void setCoversUntil(LocalDateTime coversUntil) { this.coversUntil = coversUntil; }
+    
+    public String getSizeInventory() { return sizeInventory; }
+    public void setSizeInventory(String sizeInventory) { this.sizeInventory = sizeInventory; }
+}
@@ -2,24 +2,35 @@ package com.industryE.ecommerce.entity;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_category", columnList = "category"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id")
+    @SequenceGenerator(name = "products_id", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Product name is required")
@@ -58,6 +69,11 @@ public class Product {
     @Column(name = "size_inventory", columnDefinition = "TEXT")
     private String sizeInventory;
     
+    // The same inventory packed by SizeInventoryCodec; once set it is the one that counts and sizeInventory is null
+    @Lob
+    @Column(name = "size_inventory_packed", columnDefinition = "BLOB")
+    private byte[] sizeInventoryPacked;
+    
     @NotBlank(message = "Category is required")
     @Column(nullable = false)
     private String category;
@@ -71,6 +87,11 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Optimistic lock: concurrent writes (inventory, ratings, edits) fail instead of overwriting each other
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructors
     public Product() {
         this.createdAt = LocalDateTime.now();
@@ -161,6 +182,14 @@ public class Product {
         this.sizeInventory = sizeInventory;
     }
     
+    public byte[] getSizeInventoryPacked() {
+        return sizeInventoryPacked;
+    }
+    
+    public void setSizeInventoryPacked(byte[] sizeInventoryPacked) {
+        this.sizeInventoryPacked = sizeInventoryPacked;
+    }
+    
     public String getCategory() {
         return category;
     }
@@ -225,6 +254,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     // Pre-update callback
     @PreUpdate
     public void preUpdate() {
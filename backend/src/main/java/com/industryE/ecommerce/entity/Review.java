@@ -8,15 +8,18 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = @Index(name = "idx_reviews_product_created_at", columnList = "product_id, created_at"))
 public class Review {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_id")
+    @SequenceGenerator(name = "reviews_id", sequenceName = "reviews_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
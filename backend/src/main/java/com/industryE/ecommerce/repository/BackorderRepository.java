@@ -0,0 +1,62 @@
+package com.industryE.ecommerce.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.industryE.ecommerce.Enum.BackorderStatus;
+import com.industryE.ecommerce.entity.Backorder;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface BackorderRepository extends JpaRepository<Backorder, Long> {
+
+    @Query("SELECT b FROM Backorder b WHERE b.user.id = :userId ORDER BY b.createdAt DESC")
+    List<Backorder> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
+
+    @Query("SELECT b FROM Backorder b WHERE b.id = :id AND b.user.id = :userId")
+    Optional<Backorder> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Which of the given products have sizes with someone waiting, as (productId, size); no locks
+    @Query("SELECT DISTINCT b.productId, b.size FROM Backorder b WHERE b.productId IN :productIds AND b.status = :status")
+    List<Object[]> findQueuedSizes(@Param("productIds") Collection<Long> productIds, @Param("status") BackorderStatus status);
+
+    @Query("SELECT DISTINCT b.productId, b.size FROM Backorder b WHERE b.status = :status")
+    List<Object[]> findAllQueuedSizes(@Param("status") BackorderStatus status);
+
+    // Head of one size's queue, oldest first, locked so two allocations can't hand out the same backorder
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Backorder b WHERE b.productId = :productId AND b.size = :size "
+            + "AND b.status = :status ORDER BY b.createdAt, b.id")
+    List<Backorder> findQueueForUpdate(@Param("productId") Long productId, @Param("size") String size,
+            @Param("status") BackorderStatus status, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Backorder b SET b.status = :cancelled WHERE b.id = :id AND b.user.id = :userId AND b.status = :waiting")
+    int cancelWaiting(@Param("id") Long id, @Param("userId") Long userId, @Param("waiting") BackorderStatus waiting,
+            @Param("cancelled") BackorderStatus cancelled);
+
+    // Backorders ahead of the one placed at (createdAt, id) in its size's queue
+    @Query("SELECT COUNT(b) FROM Backorder b WHERE b.productId = :productId AND b.size = :size AND b.status = :status "
+            + "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id))")
+    long countAhead(@Param("productId") Long productId, @Param("size") String size, @Param("status") BackorderStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id);
+
+    // (id, backorders ahead) for each of the user's waiting backorders with anyone ahead; the rest are first in line
+    @Query("SELECT mine.id, COUNT(ahead) FROM Backorder mine, Backorder ahead "
+            + "WHERE mine.user.id = :userId AND mine.status = :status "
+            + "AND ahead.productId = mine.productId AND ahead.size = mine.size AND ahead.status = :status "
+            + "AND (ahead.createdAt < mine.createdAt OR (ahead.createdAt = mine.createdAt AND ahead.id < mine.id)) "
+            + "GROUP BY mine.id")
+    List<Object[]> countAheadForUser(@Param("userId") Long userId, @Param("status") BackorderStatus status);
+}
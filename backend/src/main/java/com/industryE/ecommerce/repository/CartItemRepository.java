@@ -1,10 +1,13 @@
 
 package com.industryE.ecommerce.repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.industryE.ecommerce.entity.CartItem;
@@ -17,4 +20,22 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     // Finds all cart items for a given cart, product, and size (for deduplication)
     List<CartItem> findAllByCartIdAndProductIdAndSize(Long cartId, Long productId, String size);
+
+    // Selected lines with their products, for server-side checkout
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.user.id = :userId AND ci.selected = true")
+    List<CartItem> findSelectedByUserId(@Param("userId") Long userId);
+
+    // Cart totals computed in the database, so mutations don't have to reload every line
+    @Query("SELECT COUNT(ci) AS itemCount, COALESCE(SUM(ci.quantity), 0) AS totalQuantity, " +
+           "COALESCE(SUM(ci.totalPrice), 0) AS totalAmount, " +
+           "COALESCE(SUM(CASE WHEN ci.selected = true THEN ci.totalPrice ELSE 0 END), 0) AS selectedAmount " +
+           "FROM CartItem ci WHERE ci.cart.id = :cartId")
+    CartTotals getCartTotals(@Param("cartId") Long cartId);
+
+    interface CartTotals {
+        Long getItemCount();
+        Long getTotalQuantity();
+        BigDecimal getTotalAmount();
+        BigDecimal getSelectedAmount();
+    }
 }
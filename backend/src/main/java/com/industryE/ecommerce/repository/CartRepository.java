@@ -1,9 +1,12 @@
 package com.industryE.ecommerce.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.industryE.ecommerce.entity.Cart;
@@ -16,5 +19,17 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items ci LEFT JOIN FETCH ci.product WHERE c.user.id = :userId")
     Optional<Cart> findByUserIdWithItems(Long userId);
     
+    @Query("SELECT c.version FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findVersionByUserId(Long userId);
+    
+    // Current version with the cart row locked, so concurrent mutations of one cart take turns bumping it
+    @Query(value = "SELECT version FROM carts WHERE id = :cartId FOR UPDATE", nativeQuery = true)
+    Long lockVersion(@Param("cartId") Long cartId);
+    
+    // Version bump without loading the cart, for changes made directly to its lines
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.updatedAt = :now WHERE c.id = :cartId")
+    int bumpVersion(@Param("cartId") Long cartId, @Param("now") LocalDateTime now);
+    
     void deleteByUserId(Long userId);
 }
@@ -0,0 +1,17 @@
+package com.industryE.ecommerce.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.industryE.ecommerce.entity.InventoryJournalEntry;
+
+// Entries are only ever inserted; InventoryJournalService sums them with plain JDBC for rebuilds
+@Repository
+public interface InventoryJournalRepository extends JpaRepository<InventoryJournalEntry, Long> {
+
+    List<InventoryJournalEntry> findByProductIdAndCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(Long productId, LocalDateTime since, Limit limit);
+}
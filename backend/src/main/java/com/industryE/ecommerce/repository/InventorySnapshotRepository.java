@@ -0,0 +1,16 @@
+package com.industryE.ecommerce.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.industryE.ecommerce.entity.InventorySnapshot;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    // Latest snapshot a rebuild at the given time can start from
+    Optional<InventorySnapshot> findFirstByProductIdAndCoversUntilLessThanEqualOrderByCoversUntilDesc(Long productId, LocalDateTime at);
+}
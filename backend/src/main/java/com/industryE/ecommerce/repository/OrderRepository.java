@@ -1,41 +1,83 @@
 package com.industryE.ecommerce.repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.industryE.ecommerce.Enum.PaymentStatus;
+import com.industryE.ecommerce.Enum.Status;
 import com.industryE.ecommerce.entity.Order;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
-    // Find orders by user ID, ordered by date descending
-    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC")
+    // Find orders by user ID, ordered by date descending, with their items in the same query
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.user.id = :userId ORDER BY o.orderDate DESC")
     List<Order> findByUserIdOrderByOrderDateDesc(@Param("userId") Long userId);
     
     // Find specific order by ID and user ID (security check)
     @Query("SELECT o FROM Order o WHERE o.id = :orderId AND o.user.id = :userId")
     Optional<Order> findByIdAndUserId(@Param("orderId") Long orderId, @Param("userId") Long userId);
     
+    // Status changes move stock, so they lock the order row first
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    Optional<Order> findByIdForUpdate(@Param("orderId") Long orderId);
+
+    // Locks the orders of a chunk that still have the given status, with their items
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id IN :ids AND o.status = :status")
+    List<Order> findByIdInAndStatusForUpdate(@Param("ids") List<Long> ids, @Param("status") Status status);
+
+    // Bulk transitions: lock the rows and read their current state as (id, status, paymentStatus)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status, o.paymentStatus FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStatusesForUpdate(@Param("ids") List<Long> ids);
+
+    // Set-based transition; the guards repeat the state machine's rules in SQL
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to WHERE o.id IN :ids AND o.status IN :from "
+            + "AND (:paymentRequired = false OR o.paymentStatus = :paid)")
+    int transitionStatus(@Param("ids") List<Long> ids, @Param("from") Collection<Status> from, @Param("to") Status to,
+            @Param("paymentRequired") boolean paymentRequired, @Param("paid") PaymentStatus paid);
+
+    // Item quantities of the given orders summed per product and size, as (productId, size, quantity)
+    @Query("SELECT oi.productId, oi.size, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.id IN :orderIds "
+            + "GROUP BY oi.productId, oi.size")
+    List<Object[]> sumItemQuantities(@Param("orderIds") List<Long> orderIds);
+
+    // Unpaid orders of a status placed before the cutoff, walked in id order
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.orderDate < :cutoff AND o.id > :afterId "
+            + "AND (o.paymentStatus IS NULL OR o.paymentStatus <> :paid) ORDER BY o.id")
+    List<Long> findUnpaidIdsPlacedBefore(@Param("status") Status status, @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterId") Long afterId, @Param("paid") PaymentStatus paid, Limit limit);
+
     // Find orders by user ID only
     List<Order> findByUserId(Long userId);
     
     // Admin methods
-    List<Order> findByStatus(String status);
+    List<Order> findByStatus(Status status);
     
     @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC")
     List<Order> findAllOrderByOrderDateDesc();
     
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
-    Long countByStatus(@Param("status") String status);
+    Long countByStatus(@Param("status") Status status);
     
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.paymentStatus = 'PAID'")
-    BigDecimal getTotalRevenue();
+    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.paymentStatus = :paymentStatus")
+    BigDecimal getTotalRevenue(@Param("paymentStatus") PaymentStatus paymentStatus);
     
     @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC LIMIT 10")
     List<Order> findTop10RecentOrders();
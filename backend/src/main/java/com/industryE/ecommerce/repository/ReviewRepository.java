@@ -4,13 +4,17 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.industryE.ecommerce.entity.Review;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
-    List<Review> findByProductIdOrderByCreatedAtDesc(Long productId);
+    // Authors come in the same query rather than one eager load each
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.product.id = :productId ORDER BY r.createdAt DESC")
+    List<Review> findByProductIdOrderByCreatedAtDesc(@Param("productId") Long productId);
     List<Review> findByUserId(Long userId);
     Optional<Review> findByUserIdAndProductId(Long userId, Long productId);
 }
@@ -3,13 +3,21 @@ package com.industryE.ecommerce.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.industryE.ecommerce.entity.User;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    // Cached: called by the JWT filter on every authenticated request
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = "user-by-email")
+    })
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
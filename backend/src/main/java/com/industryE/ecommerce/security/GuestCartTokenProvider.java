@@ -0,0 +1,105 @@
+package com.industryE.ecommerce.security;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.industryE.ecommerce.dto.GuestCartResponse;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Signs and verifies guest carts kept on the client, so anonymous shoppers never touch the carts table.
+ * Lines are kept in one claim as a JSON array of {"p": productId, "s": size, "q": quantity} objects.
+ * Uses its own key, so a guest cart token can never pass as a login token.
+ */
+@Component
+public class GuestCartTokenProvider {
+
+    private static final String TYPE = "guest-cart";
+    private static final String LINES_CLAIM = "l";
+    private static final String PRODUCT_ID = "p";
+    private static final String SIZE = "s";
+    private static final String QUANTITY = "q";
+
+    @Value("${app.guest-cart-secret}")
+    private String guestCartSecret;
+
+    @Value("${app.guest-cart-expiration-milliseconds:604800000}")
+    private long expirationMillis;
+
+    @Value("${app.guest-cart-max-lines:50}")
+    private int maxLines;
+
+    public String generateToken(List<GuestCartResponse.GuestCartLine> lines) {
+        if (lines.size() > maxLines) {
+            throw new RuntimeException("Guest cart is limited to " + maxLines + " items");
+        }
+
+        List<Map<String, Object>> claim = new ArrayList<>(lines.size());
+        for (GuestCartResponse.GuestCartLine line : lines) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put(PRODUCT_ID, line.getProductId());
+            entry.put(SIZE, line.getSize());
+            entry.put(QUANTITY, line.getQuantity());
+            claim.add(entry);
+        }
+
+        return Jwts.builder()
+                .setSubject(TYPE)
+                .claim(LINES_CLAIM, claim)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMillis))
+                .signWith(key(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    // Verifies the signature and expiry without any database access
+    public List<GuestCartResponse.GuestCartLine> parseToken(String token) {
+        Claims claims;
+        try {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(key())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid or expired guest cart");
+        }
+        if (!TYPE.equals(claims.getSubject())) {
+            throw new RuntimeException("Invalid or expired guest cart");
+        }
+
+        List<GuestCartResponse.GuestCartLine> lines = new ArrayList<>();
+        Object claim = claims.get(LINES_CLAIM);
+        if (claim == null) {
+            return lines;
+        }
+        if (!(claim instanceof List<?> entries)) {
+            throw new RuntimeException("Invalid or expired guest cart");
+        }
+        for (Object entry : entries) {
+            // Signed by us, so a malformed line means the format changed under an old token
+            if (!(entry instanceof Map<?, ?> line) || !(line.get(PRODUCT_ID) instanceof Number productId)
+                    || !(line.get(SIZE) instanceof String size) || !(line.get(QUANTITY) instanceof Number quantity)) {
+                throw new RuntimeException("Invalid or expired guest cart");
+            }
+            lines.add(new GuestCartResponse.GuestCartLine(productId.longValue(), size, quantity.intValue()));
+        }
+        return lines;
+    }
+
+    private Key key() {
+        return Keys.hmacShaKeyFor(guestCartSecret.getBytes());
+    }
+}
@@ -2,6 +2,7 @@ package com.industryE.ecommerce.service;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +14,6 @@ import com.industryE.ecommerce.Enum.Status;
 import com.industryE.ecommerce.dto.AdminStatsResponse;
 import com.industryE.ecommerce.dto.OrderResponse;
 import com.industryE.ecommerce.dto.ProductDTO;
-import com.industryE.ecommerce.dto.ProductSizeInventoryDTO;
 import com.industryE.ecommerce.dto.UserResponse;
 import com.industryE.ecommerce.entity.Order;
 import com.industryE.ecommerce.entity.Product;
@@ -41,6 +41,15 @@ public class AdminService {
     @Autowired
     private ProductSizeInventoryService sizeInventoryService;
 
+    @Autowired
+    private OrderReservationService orderReservationService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ProductStockRollupService stockRollupService;
+
     // Dashboard Statistics
     @Transactional(readOnly = true)
     public AdminStatsResponse getDashboardStats() {
@@ -49,15 +58,15 @@ public class AdminService {
         Long totalProducts = productRepository.count();
         Long totalOrders = orderRepository.count();
         
-        BigDecimal totalRevenue = orderRepository.getTotalRevenue();
+        BigDecimal totalRevenue = orderRepository.getTotalRevenue(PaymentStatus.COMPLETED);
         if (totalRevenue == null) {
             totalRevenue = BigDecimal.ZERO;
         }
         
         Long lowStockProducts = getLowStockProductsCount();
-        Long pendingOrders = orderRepository.countByStatus("PENDING");
-        Long completedOrders = orderRepository.countByStatus("COMPLETED");
-        Long cancelledOrders = orderRepository.countByStatus("CANCELLED");
+        Long pendingOrders = orderRepository.countByStatus(Status.PENDING);
+        Long completedOrders = orderRepository.countByStatus(Status.COMPLETED);
+        Long cancelledOrders = orderRepository.countByStatus(Status.CANCELLED);
         
         AdminStatsResponse stats = new AdminStatsResponse(
             totalUsers, totalProducts, totalOrders, totalRevenue,
@@ -126,26 +135,16 @@ public class AdminService {
         productService.deleteProduct(id);
     }
 
+    // Products with a size down to the low-stock threshold, from the stock rollup
     @Transactional(readOnly = true)
     public List<ProductDTO> getLowStockProducts() {
-        List<Product> allProducts = productRepository.findAll();
-        return allProducts.stream()
-            .filter(this::isLowStock)
+        return productRepository.findAllById(stockRollupService.findLowStockProductIds()).stream()
             .map(productService::convertToDTO)
             .collect(Collectors.toList());
     }
 
-    private boolean isLowStock(Product product) {
-        List<ProductSizeInventoryDTO> inventories = sizeInventoryService.getSizeInventoryByProductId(product.getId());
-        return inventories.stream()
-            .anyMatch(inv -> inv.getAvailableQuantity() <= 5); // Consider low stock if any size has <= 5 items
-    }
-
     private Long getLowStockProductsCount() {
-        List<Product> allProducts = productRepository.findAll();
-        return allProducts.stream()
-            .filter(this::isLowStock)
-            .count();
+        return stockRollupService.countLowStockProducts();
     }
 
     // Order Management
@@ -170,24 +169,18 @@ public class AdminService {
 
     //FOR ADMIN
     public OrderResponse updateOrderStatusByAdmin(Long orderId, Status newStatus) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findByIdForUpdate(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
 
-        // Rule: Cannot deliver unless payment is PAID
-        if (newStatus == Status.DELIVERED) {
-            if (order.getPaymentStatus() != PaymentStatus.COMPLETED) {
-                throw new RuntimeException("Cannot mark as DELIVERED. Payment status is not yet COMPLETED.");
-            }
-        }
-
-        order.setStatus(newStatus);
+        // Transition rules (including payment before delivery) live in OrderStateMachine
+        orderReservationService.changeStatus(order, newStatus);
         Order updatedOrder = orderRepository.save(order);
         return convertToOrderResponse(updatedOrder);
     }
 
     //USER
     public OrderResponse updateOrderStatus(Long id, Status status) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findByIdForUpdate(id)
             .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
 
         // Validate status
@@ -195,7 +188,7 @@ public class AdminService {
             throw new RuntimeException("Invalid order status: " + status);
         }
 
-        order.setStatus(status); // <-- convert string to enum
+        orderReservationService.changeStatus(order, status);
         Order updatedOrder = orderRepository.save(order);
         return convertToOrderResponse(updatedOrder);
     }
@@ -212,6 +205,11 @@ public class AdminService {
         if (!isValidPaymentStatus(paymentStatus)) {
             throw new RuntimeException("Invalid payment status: " + paymentStatus);
         }
+        OrderStateMachine.checkTransition(order, paymentStatus);
+        if (order.getPaymentStatus() != paymentStatus) {
+            outboxService.record(OutboxService.ORDER, order.getId(), "OrderPaymentStatusChanged",
+                    Map.of("from", String.valueOf(order.getPaymentStatus()), "to", paymentStatus));
+        }
 
         order.setPaymentStatus(paymentStatus); // <-- directly set the enum
         Order updatedOrder = orderRepository.save(order);
@@ -221,7 +219,7 @@ public class AdminService {
 
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersByStatus(String status) {
-        List<Order> orders = orderRepository.findByStatus(status.toUpperCase());
+        List<Order> orders = orderRepository.findByStatus(Status.valueOf(status.toUpperCase()));
         return orders.stream()
             .map(this::convertToOrderResponse)
             .collect(Collectors.toList());
@@ -0,0 +1,67 @@
+package com.industryE.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write (index patches, feed events, hot-size marks) until the
+ * transaction commits, so a rollback never leaves them behind. Outside a transaction the action
+ * runs right away. A transaction's actions share one synchronization and run in the order they
+ * were added; bulk writes defer thousands of them, and Spring re-sorts the registered
+ * synchronizations at every commit phase.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        Actions actions = (Actions) TransactionSynchronizationManager.getResource(AfterCommit.class);
+        if (actions != null && actions.committed) {
+            // Deferred from an action that is already running after the commit
+            action.run();
+            return;
+        }
+        if (actions == null) {
+            actions = new Actions();
+            TransactionSynchronizationManager.bindResource(AfterCommit.class, actions);
+            TransactionSynchronizationManager.registerSynchronization(actions);
+        }
+        actions.pending.add(action);
+    }
+
+    private static final class Actions implements TransactionSynchronization {
+
+        final List<Runnable> pending = new ArrayList<>();
+        boolean committed;
+
+        // An inner REQUIRES_NEW transaction gets its own list while this one is suspended
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(AfterCommit.class);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(AfterCommit.class, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            committed = true;
+            pending.forEach(Runnable::run);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AfterCommit.class);
+        }
+    }
+}
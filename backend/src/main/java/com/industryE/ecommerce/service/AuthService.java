@@ -27,6 +27,9 @@ public class AuthService {
     @Autowired
     private JwtTokenProvider tokenProvider;
     
+    @Autowired
+    private CartService cartService;
+    
     public AuthResponse login(LoginRequest loginRequest) {
         System.out.println("=== LOGIN ATTEMPT ===");
         System.out.println("Email: " + loginRequest.getEmail());
@@ -74,6 +77,8 @@ public class AuthService {
                     existingUser.getRole().name()
             );
             
+            mergeGuestCart(existingUser, loginRequest.getGuestCartToken());
+            
             System.out.println("Login successful for: " + loginRequest.getEmail());
             return new AuthResponse(jwt, userResponse, "Login successful");
         } catch (Exception ex) {
@@ -127,7 +132,21 @@ public class AuthService {
                 savedUser.getRole().name()
         );
         
+        mergeGuestCart(savedUser, registerRequest.getGuestCartToken());
+        
         System.out.println("Registration successful for: " + registerRequest.getEmail());
         return new AuthResponse(jwt, userResponse, "User registered successfully");
     }
+    
+    // A bad or expired guest cart must never block signing in
+    private void mergeGuestCart(User user, String guestCartToken) {
+        if (guestCartToken == null || guestCartToken.isEmpty()) {
+            return;
+        }
+        try {
+            cartService.mergeGuestCart(user, guestCartToken);
+        } catch (Exception e) {
+            System.err.println("Guest cart merge failed for " + user.getEmail() + ": " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,335 @@
+package com.industryE.ecommerce.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.industryE.ecommerce.Enum.BackorderStatus;
+import com.industryE.ecommerce.Enum.Status;
+import com.industryE.ecommerce.dto.BackorderRequest;
+import com.industryE.ecommerce.dto.BackorderResponse;
+import com.industryE.ecommerce.entity.Backorder;
+import com.industryE.ecommerce.entity.Order;
+import com.industryE.ecommerce.entity.OrderItem;
+import com.industryE.ecommerce.entity.Product;
+import com.industryE.ecommerce.entity.User;
+import com.industryE.ecommerce.repository.BackorderRepository;
+import com.industryE.ecommerce.repository.OrderRepository;
+import com.industryE.ecommerce.repository.ProductRepository;
+import com.industryE.ecommerce.service.ProductSizeInventoryService.SizeInventoryData;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Backorders for sold-out sizes, queued per product size oldest first. After a restock commits,
+ * {@link #allocate} hands the new stock to the head of each restocked size's queue in one pass per
+ * transaction: the queue is locked, the backorders that fit are taken in order, their stock is
+ * reserved in one batch per product and their orders are inserted together, PENDING and awaiting
+ * payment like any other order. A backorder larger than the stock left stops its queue, so later
+ * ones never overtake it. A periodic sweep catches stock freed some other way (cancelled orders,
+ * a restock on another instance, an allocation that failed).
+ */
+@Service
+public class BackorderService {
+
+    @Autowired
+    private BackorderRepository backorderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.orders.backorders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.backorders.max-quantity:10}")
+    private int maxQuantity;
+
+    // Backorders taken from one size's queue per transaction; a full batch is followed by another pass
+    @Value("${app.orders.backorders.allocation-batch-size:200}")
+    private int batchSize;
+
+    private Counter backordersAllocated;
+
+    @PostConstruct
+    public void registerMetrics() {
+        backordersAllocated = Counter.builder("orders.backorders.allocated")
+                .description("Backorders turned into orders when stock arrived")
+                .register(meterRegistry);
+    }
+
+    private static final class Pass {
+        final int allocated;
+        final Map<Long, Set<String>> unfinished;
+
+        Pass(int allocated, Map<Long, Set<String>> unfinished) {
+            this.allocated = allocated;
+            this.unfinished = unfinished;
+        }
+    }
+
+    /** Queues the user for a size that can't cover the quantity right now. */
+    @Transactional
+    public BackorderResponse placeBackorder(BackorderRequest request, User user) {
+        if (!enabled) {
+            throw new RuntimeException("Backorders are not being taken");
+        }
+        if (request.getQuantity() > maxQuantity) {
+            throw new RuntimeException("At most " + maxQuantity + " items can be backordered at once");
+        }
+        Product product = productRepository.findById(request.getProductId())
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        SizeInventoryData data = sizeInventoryService.getInventory(product).get(request.getSize());
+        if (data == null) {
+            throw new RuntimeException("Size " + request.getSize() + " not found for product");
+        }
+        if (data.getAvailable() >= request.getQuantity()) {
+            throw new RuntimeException("Size " + request.getSize() + " is in stock, please order it instead");
+        }
+
+        Backorder backorder = new Backorder();
+        backorder.setUser(user);
+        backorder.setProductId(product.getId());
+        backorder.setSize(request.getSize());
+        backorder.setQuantity(request.getQuantity());
+        backorder.setUnitPrice(BigDecimal.valueOf(product.getPrice()));
+        backorder.setPaymentMethod(request.getPaymentMethod());
+        if (request.getShippingInfo() != null) {
+            backorder.setShippingFirstName(request.getShippingInfo().getFirstName());
+            backorder.setShippingLastName(request.getShippingInfo().getLastName());
+            backorder.setShippingAddress(request.getShippingInfo().getAddress());
+            backorder.setShippingCity(request.getShippingInfo().getCity());
+            backorder.setShippingProvince(request.getShippingInfo().getProvince());
+            backorder.setShippingPostalCode(request.getShippingInfo().getPostalCode());
+            backorder.setShippingPhone(request.getShippingInfo().getPhone());
+        }
+        return convertToResponse(backorderRepository.save(backorder));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BackorderResponse> getUserBackorders(Long userId) {
+        List<Backorder> backorders = backorderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        // Every waiting backorder's place in its queue, in one query
+        Map<Long, Long> ahead = new HashMap<>();
+        if (backorders.stream().anyMatch(backorder -> backorder.getStatus() == BackorderStatus.WAITING)) {
+            for (Object[] row : backorderRepository.countAheadForUser(userId, BackorderStatus.WAITING)) {
+                ahead.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        List<BackorderResponse> result = new ArrayList<>();
+        for (Backorder backorder : backorders) {
+            result.add(convertToResponse(backorder, ahead.getOrDefault(backorder.getId(), 0L)));
+        }
+        return result;
+    }
+
+    // Only a waiting backorder can be withdrawn; the guarded update loses cleanly to an allocation in flight
+    @Transactional
+    public void cancelBackorder(Long backorderId, Long userId) {
+        if (backorderRepository.cancelWaiting(backorderId, userId, BackorderStatus.WAITING, BackorderStatus.CANCELLED) == 0) {
+            backorderRepository.findByIdAndUserId(backorderId, userId)
+                    .orElseThrow(() -> new RuntimeException("Backorder not found or access denied"));
+            throw new RuntimeException("Only waiting backorders can be cancelled");
+        }
+    }
+
+    /**
+     * Allocates stock to the queues of the given product sizes, typically the ones a restock just
+     * raised. Call it after the restock has committed. Sizes nobody is waiting for cost one
+     * unlocked query in total. Failures are logged rather than thrown, since the restock itself
+     * succeeded; the sweep retries. Returns the number of backorders allocated.
+     */
+    public int allocate(Map<Long, ? extends Collection<String>> sizesByProduct) {
+        if (!enabled || sizesByProduct.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Set<String>> queued = new TreeMap<>();
+        for (Object[] row : backorderRepository.findQueuedSizes(sizesByProduct.keySet(), BackorderStatus.WAITING)) {
+            Long productId = (Long) row[0];
+            String size = (String) row[1];
+            if (sizesByProduct.get(productId).contains(size)) {
+                queued.computeIfAbsent(productId, id -> new TreeSet<>()).add(size);
+            }
+        }
+        return allocateQueued(queued);
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.backorders.sweep-interval-ms:300000}",
+               initialDelayString = "${app.orders.backorders.sweep-interval-ms:300000}")
+    public void allocateWaiting() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Set<String>> queued = new TreeMap<>();
+        for (Object[] row : backorderRepository.findAllQueuedSizes(BackorderStatus.WAITING)) {
+            queued.computeIfAbsent((Long) row[0], id -> new TreeSet<>()).add((String) row[1]);
+        }
+        int allocated = allocateQueued(queued);
+        if (allocated > 0) {
+            System.out.println("Backorder sweep allocated " + allocated + " backorders");
+        }
+    }
+
+    private int allocateQueued(Map<Long, Set<String>> queued) {
+        int total = 0;
+        Map<Long, Set<String>> remaining = queued;
+        while (!remaining.isEmpty()) {
+            Map<Long, Set<String>> pass = remaining;
+            try {
+                Pass result = optimisticRetryService.execute("backorder.allocate", () -> allocatePass(pass));
+                total += result.allocated;
+                remaining = result.unfinished;
+            } catch (RuntimeException e) {
+                System.err.println("Backorder allocation for " + pass.size() + " products failed: " + e.getMessage());
+                break;
+            }
+        }
+        if (total > 0) {
+            backordersAllocated.increment(total);
+        }
+        return total;
+    }
+
+    // One transaction: lock each queue's head, take what fits, reserve per product, insert the orders
+    private Pass allocatePass(Map<Long, Set<String>> queued) {
+        Map<Product, Map<String, Integer>> reservations = new LinkedHashMap<>();
+        List<Backorder> allocated = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        Map<Long, Set<String>> unfinished = new TreeMap<>();
+
+        // Id and size order keeps the queue locks of concurrent passes in the same order
+        for (Map.Entry<Long, Set<String>> entry : queued.entrySet()) {
+            Product product = productRepository.findById(entry.getKey()).orElse(null);
+            if (product == null) {
+                continue;
+            }
+            Map<String, SizeInventoryData> inventory = sizeInventoryService.getInventory(product);
+            for (String size : entry.getValue()) {
+                SizeInventoryData data = inventory.get(size);
+                int free = data != null ? data.getAvailable() : 0;
+                if (free <= 0) {
+                    continue;
+                }
+                List<Backorder> queue = backorderRepository.findQueueForUpdate(product.getId(), size,
+                        BackorderStatus.WAITING, Limit.of(batchSize));
+                int taken = 0;
+                for (Backorder backorder : queue) {
+                    if (backorder.getQuantity() > free) {
+                        // First come, first served: the head waits for more stock and nobody behind it jumps ahead
+                        break;
+                    }
+                    free -= backorder.getQuantity();
+                    reservations.computeIfAbsent(product, p -> new LinkedHashMap<>())
+                            .merge(size, backorder.getQuantity(), Integer::sum);
+                    allocated.add(backorder);
+                    orders.add(buildOrder(backorder, product));
+                    taken++;
+                }
+                if (taken == batchSize) {
+                    unfinished.computeIfAbsent(product.getId(), id -> new TreeSet<>()).add(size);
+                }
+            }
+        }
+        if (allocated.isEmpty()) {
+            return new Pass(0, Map.of());
+        }
+
+        sizeInventoryService.reserveInventory(reservations);
+        orderRepository.saveAll(orders);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < allocated.size(); i++) {
+            Backorder backorder = allocated.get(i);
+            backorder.setStatus(BackorderStatus.ALLOCATED);
+            backorder.setOrderId(orders.get(i).getId());
+            backorder.setAllocatedAt(now);
+            orderService.recordOrderPlaced(orders.get(i));
+        }
+        backorderRepository.saveAll(allocated);
+        return new Pass(allocated.size(), unfinished);
+    }
+
+    private Order buildOrder(Backorder backorder, Product product) {
+        Order order = new Order();
+        order.setUser(backorder.getUser());
+        // Many orders are placed in the same millisecond here, so the backorder id keeps the number unique
+        order.setOrderNumber("ORD-" + System.currentTimeMillis() + "-B" + backorder.getId());
+        order.setStatus(Status.PENDING);
+        order.setPaymentMethod(backorder.getPaymentMethod());
+        order.setShippingFirstName(backorder.getShippingFirstName());
+        order.setShippingLastName(backorder.getShippingLastName());
+        order.setShippingAddress(backorder.getShippingAddress());
+        order.setShippingCity(backorder.getShippingCity());
+        order.setShippingProvince(backorder.getShippingProvince());
+        order.setShippingPostalCode(backorder.getShippingPostalCode());
+        order.setShippingPhone(backorder.getShippingPhone());
+
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(product.getId());
+        item.setProductName(product.getName());
+        item.setProductImage(product.getImage() != null ? product.getImage() : "");
+        item.setSize(backorder.getSize());
+        item.setUnitPrice(backorder.getUnitPrice());
+        item.setQuantity(backorder.getQuantity());
+        item.setTotalPrice(backorder.getUnitPrice().multiply(BigDecimal.valueOf(backorder.getQuantity())));
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        order.setTotalAmount(item.getTotalPrice());
+        return order;
+    }
+
+    private BackorderResponse convertToResponse(Backorder backorder) {
+        long ahead = backorder.getStatus() != BackorderStatus.WAITING ? 0
+                : backorderRepository.countAhead(backorder.getProductId(), backorder.getSize(),
+                        BackorderStatus.WAITING, backorder.getCreatedAt(), backorder.getId());
+        return convertToResponse(backorder, ahead);
+    }
+
+    // ahead: waiting backorders before this one in its size's queue
+    private BackorderResponse convertToResponse(Backorder backorder, long ahead) {
+        BackorderResponse response = new BackorderResponse();
+        response.setId(backorder.getId());
+        response.setProductId(backorder.getProductId());
+        response.setSize(backorder.getSize());
+        response.setQuantity(backorder.getQuantity());
+        response.setUnitPrice(backorder.getUnitPrice());
+        response.setStatus(backorder.getStatus());
+        response.setOrderId(backorder.getOrderId());
+        response.setCreatedAt(backorder.getCreatedAt());
+        response.setAllocatedAt(backorder.getAllocatedAt());
+        if (backorder.getStatus() == BackorderStatus.WAITING) {
+            response.setQueuePosition(1 + ahead);
+        }
+        return response;
+    }
+}
@@ -3,17 +3,28 @@ package com.industryE.ecommerce.service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.industryE.ecommerce.Enum.CartLineAvailability;
 import com.industryE.ecommerce.dto.AddToCartRequest;
+import com.industryE.ecommerce.dto.CartBatchRequest;
+import com.industryE.ecommerce.dto.CartDeltaResponse;
 import com.industryE.ecommerce.dto.CartResponse;
+import com.industryE.ecommerce.dto.GuestCartRequest;
+import com.industryE.ecommerce.dto.GuestCartResponse;
 import com.industryE.ecommerce.dto.UpdateCartItemRequest;
 import com.industryE.ecommerce.entity.Cart;
 import com.industryE.ecommerce.entity.CartItem;
@@ -22,6 +33,7 @@ import com.industryE.ecommerce.entity.User;
 import com.industryE.ecommerce.repository.CartItemRepository;
 import com.industryE.ecommerce.repository.CartRepository;
 import com.industryE.ecommerce.repository.ProductRepository;
+import com.industryE.ecommerce.security.GuestCartTokenProvider;
 
 @Service
 @Transactional
@@ -39,27 +51,51 @@ public class CartService {
     @Autowired
     private ProductSizeInventoryService sizeInventoryService;
 
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private GuestCartTokenProvider guestCartTokenProvider;
+
+    @Autowired
+    private InventoryHoldService inventoryHoldService;
+
+    @Value("${app.cart.max-batch-operations:100}")
+    private int maxBatchOperations;
+
+    @Transactional(readOnly = true)
     public CartResponse getCartByUser(User user) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(user, this::convertToResponse);
+        }
+
         Optional<Cart> cartOpt = cartRepository.findByUserIdWithItems(user.getId());
 
         if (cartOpt.isPresent()) {
             return convertToResponse(cartOpt.get());
         } else {
-            // Create new empty cart
+            // Empty cart for display only; the row is created by the first add
             Cart newCart = new Cart();
             newCart.setUser(user);
             newCart.setItems(new ArrayList<>());
-            Cart savedCart = cartRepository.save(newCart);
-            return convertToResponse(savedCart);
+            return convertToResponse(newCart);
         }
     }
 
-    public CartResponse addToCart(User user, AddToCartRequest request) {
-        // Check size availability first
-        if (!sizeInventoryService.checkAvailability(request.getProductId(), request.getSize(), request.getQuantity())) {
+    public CartDeltaResponse addToCart(User user, AddToCartRequest request) {
+        // Check size availability first; with holds on, holding the quantity is the check
+        if (inventoryHoldService.isEnabled()) {
+            holdLine(user, request.getProductId(), request.getSize(), request.getQuantity());
+        } else if (!sizeInventoryService.checkAvailability(request.getProductId(), request.getSize(), request.getQuantity())) {
             throw new RuntimeException("Size " + request.getSize() + " is not available or insufficient quantity");
         }
 
+        if (cartStore.isEnabled()) {
+            Product product = productRepository.findById(request.getProductId())
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            return cartStore.withCart(user, state -> addToStoredCart(user, state, product, request));
+        }
+
         // Get or create cart
         Cart cart = cartRepository.findByUserId(user.getId())
                 .orElseGet(() -> {
@@ -76,13 +112,14 @@ public class CartService {
         Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndProductIdAndSize(
                 cart.getId(), product.getId(), request.getSize());
 
+        CartItem cartItem;
         if (existingItem.isPresent()) {
             // Always set the quantity to the requested value (replace, do not add)
             CartItem item = existingItem.get();
             int newQuantity = request.getQuantity();
 
             // Check if new quantity is available
-            if (!sizeInventoryService.checkAvailability(request.getProductId(), request.getSize(), newQuantity)) {
+            if (!inventoryHoldService.isEnabled() && !sizeInventoryService.checkAvailability(request.getProductId(), request.getSize(), newQuantity)) {
                 throw new RuntimeException("Cannot set quantity to " + newQuantity + ". Only " +
                         sizeInventoryService.getSizeInventory(request.getProductId(), request.getSize())
                                 .getAvailableQuantity() +
@@ -90,7 +127,7 @@ public class CartService {
             }
 
             item.setQuantity(newQuantity);
-            cartItemRepository.save(item);
+            cartItem = cartItemRepository.save(item);
         } else {
             // Add new item
             CartItem newItem = new CartItem();
@@ -99,17 +136,22 @@ public class CartService {
             newItem.setSize(request.getSize());
             newItem.setQuantity(request.getQuantity());
             newItem.setUnitPrice(BigDecimal.valueOf(product.getPrice()));
-            cartItemRepository.save(newItem);
+            cartItem = cartItemRepository.save(newItem);
         }
 
-        // Update cart timestamp
-        cart.setUpdatedAt(LocalDateTime.now());
-        cartRepository.save(cart);
-
-        return getCartByUser(user);
+        long baseVersion = touchCart(cart);
+        return buildDelta(cart, baseVersion, cartItem, null);
     }
 
-    public CartResponse selectItem(User user, Long itemId, boolean selected) {
+    public CartDeltaResponse selectItem(User user, Long itemId, boolean selected) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(user, state -> {
+                CartStore.Line line = findStoredLine(state, itemId);
+                line.setSelected(selected);
+                return buildDelta(state, state.markDirty(itemId), line, null);
+            });
+        }
+
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -120,11 +162,22 @@ public class CartService {
         item.setSelected(selected);
         cartItemRepository.save(item);
 
-        return getCartByUser(user);
+        Cart cart = item.getCart();
+        long baseVersion = touchCart(cart);
+        return buildDelta(cart, baseVersion, item, null);
     }
 
 
-    public CartResponse updateCartItem(User user, Long cartItemId, UpdateCartItemRequest request) {
+    public CartDeltaResponse updateCartItem(User user, Long cartItemId, UpdateCartItemRequest request) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(user, state -> {
+                CartStore.Line line = findStoredLine(state, cartItemId);
+                holdLine(user, line.getProductId(), line.getSize(), request.getQuantity());
+                line.setQuantity(request.getQuantity());
+                return buildDelta(state, state.markDirty(cartItemId), line, null);
+            });
+        }
+
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -133,18 +186,25 @@ public class CartService {
             throw new RuntimeException("Unauthorized access to cart item");
         }
 
+        holdLine(user, cartItem.getProduct().getId(), cartItem.getSize(), request.getQuantity());
         cartItem.setQuantity(request.getQuantity());
         cartItemRepository.save(cartItem);
 
-        // Update cart timestamp
         Cart cart = cartItem.getCart();
-        cart.setUpdatedAt(LocalDateTime.now());
-        cartRepository.save(cart);
-
-        return getCartByUser(user);
+        long baseVersion = touchCart(cart);
+        return buildDelta(cart, baseVersion, cartItem, null);
     }
 
-    public CartResponse removeFromCart(User user, Long cartItemId) {
+    public CartDeltaResponse removeFromCart(User user, Long cartItemId) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(user, state -> {
+                CartStore.Line line = findStoredLine(state, cartItemId);
+                holdLine(user, line.getProductId(), line.getSize(), 0);
+                state.removeLine(cartItemId);
+                return buildDelta(state, state.markDirty(null), null, cartItemId);
+            });
+        }
+
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -153,25 +213,401 @@ public class CartService {
             throw new RuntimeException("Unauthorized access to cart item");
         }
 
+        holdLine(user, cartItem.getProduct().getId(), cartItem.getSize(), 0);
         cartItemRepository.delete(cartItem);
 
-        // Update cart timestamp
         Cart cart = cartItem.getCart();
-        cart.setUpdatedAt(LocalDateTime.now());
-        cartRepository.save(cart);
+        long baseVersion = touchCart(cart);
+        return buildDelta(cart, baseVersion, null, cartItemId);
+    }
 
-        return getCartByUser(user);
+    /**
+     * Applies an ordered batch of add/update/remove/select operations in one transaction.
+     * The cart is loaded once with its lines, new products are fetched in a single query, every
+     * resulting quantity is checked against inventory in one pass, and any failure rolls back the whole batch.
+     */
+    public CartResponse applyBatch(User user, CartBatchRequest request) {
+        List<CartBatchRequest.CartOperation> operations = request.getOperations();
+        if (operations.size() > maxBatchOperations) {
+            throw new RuntimeException("Too many cart operations: " + operations.size() + " (max " + maxBatchOperations + ")");
+        }
+        // Batches work on the rows directly
+        cartStore.flushAndEvict(user.getId());
+
+        Cart cart = cartRepository.findByUserIdWithItems(user.getId())
+                .orElseGet(() -> {
+                    Cart newCart = new Cart();
+                    newCart.setUser(user);
+                    return cartRepository.save(newCart);
+                });
+        if (cart.getItems() == null) {
+            cart.setItems(new ArrayList<>());
+        }
+
+        Map<Long, CartItem> linesById = new HashMap<>();
+        Map<String, CartItem> linesByKey = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            linesById.put(item.getId(), item);
+            linesByKey.put(lineKey(item.getProduct().getId(), item.getSize()), item);
+        }
+
+        // Products for new lines in one query; products of existing lines came with the cart
+        Set<Long> productIds = operations.stream()
+                .filter(op -> "add".equalsIgnoreCase(op.getOp()) && op.getProductId() != null)
+                .map(CartBatchRequest.CartOperation::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+
+        Set<CartItem> changedLines = new LinkedHashSet<>();
+        List<CartItem> removedLines = new ArrayList<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            CartBatchRequest.CartOperation op = operations.get(i);
+            String type = op.getOp().toLowerCase();
+            String context = "Operation " + (i + 1) + " (" + type + "): ";
+
+            switch (type) {
+                case "add": {
+                    Product product = products.get(op.getProductId());
+                    if (product == null) {
+                        throw new RuntimeException(context + "Product not found");
+                    }
+                    if (op.getSize() == null) {
+                        throw new RuntimeException(context + "Size is required");
+                    }
+                    requirePositiveQuantity(context, op.getQuantity());
+
+                    // Same replace-not-increment semantics as addToCart
+                    CartItem line = linesByKey.get(lineKey(product.getId(), op.getSize()));
+                    if (line == null) {
+                        line = new CartItem();
+                        line.setCart(cart);
+                        line.setProduct(product);
+                        line.setSize(op.getSize());
+                        line.setUnitPrice(BigDecimal.valueOf(product.getPrice()));
+                        cart.getItems().add(line);
+                        linesByKey.put(lineKey(product.getId(), op.getSize()), line);
+                    }
+                    line.setQuantity(op.getQuantity());
+                    changedLines.add(line);
+                    break;
+                }
+                case "update": {
+                    CartItem line = findLine(context, linesById, op.getItemId());
+                    requirePositiveQuantity(context, op.getQuantity());
+                    line.setQuantity(op.getQuantity());
+                    changedLines.add(line);
+                    break;
+                }
+                case "remove": {
+                    CartItem line = findLine(context, linesById, op.getItemId());
+                    linesById.remove(line.getId());
+                    linesByKey.remove(lineKey(line.getProduct().getId(), line.getSize()));
+                    cart.getItems().remove(line);
+                    changedLines.remove(line);
+                    removedLines.add(line);
+                    break;
+                }
+                case "select": {
+                    CartItem line = findLine(context, linesById, op.getItemId());
+                    if (op.getSelected() == null) {
+                        throw new RuntimeException(context + "Selected flag is required");
+                    }
+                    line.setSelected(op.getSelected());
+                    changedLines.add(line);
+                    break;
+                }
+                default:
+                    throw new RuntimeException(context + "Unsupported cart operation");
+            }
+        }
+
+        if (inventoryHoldService.isEnabled()) {
+            // Hold the final quantities in one batch; a line removed and re-added keeps only its last quantity
+            Map<String, InventoryHoldService.HoldLine> holdLines = new LinkedHashMap<>();
+            for (CartItem line : removedLines) {
+                holdLines.put(lineKey(line.getProduct().getId(), line.getSize()),
+                        new InventoryHoldService.HoldLine(line.getProduct().getId(), line.getSize(), 0));
+            }
+            for (CartItem line : changedLines) {
+                holdLines.put(lineKey(line.getProduct().getId(), line.getSize()),
+                        new InventoryHoldService.HoldLine(line.getProduct().getId(), line.getSize(), line.getQuantity()));
+            }
+            inventoryHoldService.setHolds(user.getId(), new ArrayList<>(holdLines.values()));
+        } else {
+            checkBatchAvailability(changedLines);
+        }
+
+        cartItemRepository.deleteAll(removedLines);
+        cartItemRepository.saveAll(changedLines);
+        touchCart(cart);
+        return convertToResponse(cart);
+    }
+
+    /**
+     * Sets one line of a guest cart and returns the re-signed token. Only the catalog is read
+     * (to check the size is in stock); guest carts never touch the carts tables.
+     */
+    @Transactional(readOnly = true)
+    public GuestCartResponse updateGuestCart(GuestCartRequest request) {
+        List<GuestCartResponse.GuestCartLine> lines = request.getToken() != null && !request.getToken().isEmpty()
+                ? guestCartTokenProvider.parseToken(request.getToken())
+                : new ArrayList<>();
+
+        lines.removeIf(line -> line.getProductId().equals(request.getProductId()) && line.getSize().equals(request.getSize()));
+        if (request.getQuantity() > 0) {
+            if (!sizeInventoryService.checkAvailability(request.getProductId(), request.getSize(), request.getQuantity())) {
+                throw new RuntimeException("Size " + request.getSize() + " is not available or insufficient quantity");
+            }
+            lines.add(new GuestCartResponse.GuestCartLine(request.getProductId(), request.getSize(), request.getQuantity()));
+        }
+
+        return new GuestCartResponse(guestCartTokenProvider.generateToken(lines), lines);
+    }
+
+    /**
+     * Merges a signed guest cart into the user's cart as one batch. Guest quantities replace those of
+     * matching lines; lines are trimmed to the stock left and dropped when the product or size is gone,
+     * so a sold-out item doesn't block the rest of the merge.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public CartResponse mergeGuestCart(User user, String token) {
+        List<GuestCartResponse.GuestCartLine> lines = guestCartTokenProvider.parseToken(token);
+
+        Set<Long> productIds = lines.stream()
+                .map(GuestCartResponse.GuestCartLine::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+
+        List<CartBatchRequest.CartOperation> operations = new ArrayList<>();
+        for (GuestCartResponse.GuestCartLine line : lines) {
+            Product product = products.get(line.getProductId());
+            if (product == null) {
+                continue;
+            }
+            ProductSizeInventoryService.SizeInventoryData data = sizeInventoryService.getInventory(product).get(line.getSize());
+            int quantity = data == null ? 0 : Math.min(line.getQuantity(),
+                    data.getAvailable() + ownHold(user.getId(), product.getId(), line.getSize()));
+            if (quantity < 1) {
+                continue;
+            }
+
+            CartBatchRequest.CartOperation op = new CartBatchRequest.CartOperation();
+            op.setOp("add");
+            op.setProductId(line.getProductId());
+            op.setSize(line.getSize());
+            op.setQuantity(quantity);
+            operations.add(op);
+        }
+
+        if (operations.isEmpty()) {
+            return getCartByUser(user);
+        }
+        CartBatchRequest batch = new CartBatchRequest();
+        batch.setOperations(operations);
+        return applyBatch(user, batch);
+    }
+
+    // One inventory pass over the final quantities, parsing each product's inventory once
+    private void checkBatchAvailability(Set<CartItem> changedLines) {
+        Map<Long, Map<String, ProductSizeInventoryService.SizeInventoryData>> inventories = new HashMap<>();
+        for (CartItem line : changedLines) {
+            Product product = line.getProduct();
+            ProductSizeInventoryService.SizeInventoryData data = inventories
+                    .computeIfAbsent(product.getId(), id -> sizeInventoryService.getInventory(product))
+                    .get(line.getSize());
+            if (data == null || data.getAvailable() < line.getQuantity()) {
+                throw new RuntimeException("Cannot set " + product.getName() + " size " + line.getSize() + " to "
+                        + line.getQuantity() + ". Only " + (data == null ? 0 : data.getAvailable()) + " available");
+            }
+        }
+    }
+
+    private CartItem findLine(String context, Map<Long, CartItem> linesById, Long itemId) {
+        CartItem line = itemId != null ? linesById.get(itemId) : null;
+        if (line == null) {
+            throw new RuntimeException(context + "Cart item not found");
+        }
+        return line;
+    }
+
+    private void requirePositiveQuantity(String context, Integer quantity) {
+        if (quantity == null || quantity < 1) {
+            throw new RuntimeException(context + "Quantity must be at least 1");
+        }
+    }
+
+    // Holds (or with 0 releases) a line's quantity for this user; no-op while holds are off
+    private void holdLine(User user, Long productId, String size, int quantity) {
+        if (inventoryHoldService.isEnabled()) {
+            inventoryHoldService.setHolds(user.getId(),
+                    List.of(new InventoryHoldService.HoldLine(productId, size, quantity)));
+        }
+    }
+
+    private String lineKey(Long productId, String size) {
+        return productId + ":" + size;
+    }
+
+    // Current cart version for ETag checks, without loading any cart lines
+    @Transactional(readOnly = true)
+    public Optional<Long> getCartVersion(User user) {
+        if (cartStore.isEnabled()) {
+            return Optional.of(cartStore.withCart(user, CartStore.CartState::getVersion));
+        }
+        return cartRepository.findVersionByUserId(user.getId());
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void clearCart(User user) {
+        cartStore.flushAndEvict(user.getId());
         Optional<Cart> cartOpt = cartRepository.findByUserId(user.getId());
         if (cartOpt.isPresent()) {
             Cart cart = cartOpt.get();
             cartItemRepository.deleteByCartId(cart.getId());
-            cart.setUpdatedAt(LocalDateTime.now());
-            cartRepository.save(cart);
+            touchCart(cart);
+        }
+        if (inventoryHoldService.isEnabled()) {
+            inventoryHoldService.releaseAllForUser(user.getId());
+        }
+    }
+
+    // Existing lines change in memory only; new lines are inserted right away so they get a real id
+    private CartDeltaResponse addToStoredCart(User user, CartStore.CartState state, Product product, AddToCartRequest request) {
+        CartStore.Line line = state.findLine(product.getId(), request.getSize());
+        if (line != null) {
+            line.setQuantity(request.getQuantity());
+            return buildDelta(state, state.markDirty(line.getId()), line, null);
+        }
+
+        Cart cart;
+        if (state.getCartId() != null) {
+            cart = cartRepository.findById(state.getCartId())
+                    .orElseThrow(() -> new RuntimeException("Cart not found"));
+        } else {
+            cart = new Cart();
+            cart.setUser(user);
+            cart = cartRepository.save(cart);
+            state.setCartId(cart.getId());
+        }
+
+        CartItem newItem = new CartItem();
+        newItem.setCart(cart);
+        newItem.setProduct(product);
+        newItem.setSize(request.getSize());
+        newItem.setQuantity(request.getQuantity());
+        newItem.setUnitPrice(BigDecimal.valueOf(product.getPrice()));
+        cartItemRepository.save(newItem);
+        state.addPersistedLine(newItem);
+
+        // The cart row is written in the same transaction, so its version is durable with the new line
+        long baseVersion = state.markDirty(null);
+        cart.setVersion(state.getVersion());
+        cart.setUpdatedAt(state.getUpdatedAt());
+        cartRepository.save(cart);
+        return buildDelta(state, baseVersion, state.getLines().get(newItem.getId()), null);
+    }
+
+    // Only the user's own lines are in their stored cart, so this also covers the ownership check
+    private CartStore.Line findStoredLine(CartStore.CartState state, Long itemId) {
+        CartStore.Line line = state.getLines().get(itemId);
+        if (line == null) {
+            throw new RuntimeException("Cart item not found");
         }
+        return line;
+    }
+
+    // Updates the cart timestamp and bumps its version; returns the version before the change. The version
+    // is read under a row lock, so two concurrent mutations get N and N+1 rather than both building on N.
+    private long touchCart(Cart cart) {
+        long baseVersion = cartRepository.lockVersion(cart.getId());
+        cart.setUpdatedAt(LocalDateTime.now());
+        cart.setVersion(baseVersion + 1);
+        cartRepository.save(cart);
+        return baseVersion;
+    }
+
+    private CartDeltaResponse buildDelta(Cart cart, long baseVersion, CartItem changedItem, Long removedItemId) {
+        CartItemRepository.CartTotals totals = cartItemRepository.getCartTotals(cart.getId());
+
+        CartDeltaResponse delta = new CartDeltaResponse();
+        delta.setCartId(cart.getId());
+        delta.setBaseVersion(baseVersion);
+        delta.setVersion(cart.getVersion());
+        delta.setItem(changedItem != null ? convertItemToResponse(changedItem) : null);
+        delta.setRemovedItemId(removedItemId);
+        delta.setItemCount(totals.getItemCount());
+        delta.setTotalQuantity(totals.getTotalQuantity());
+        delta.setTotalAmount(totals.getTotalAmount());
+        delta.setSelectedAmount(totals.getSelectedAmount());
+        return delta;
+    }
+
+    private CartDeltaResponse buildDelta(CartStore.CartState state, long baseVersion, CartStore.Line changedLine, Long removedItemId) {
+        CartDeltaResponse delta = new CartDeltaResponse();
+        delta.setCartId(state.getCartId());
+        delta.setBaseVersion(baseVersion);
+        delta.setVersion(state.getVersion());
+        delta.setItem(changedLine != null ? convertLineToResponse(changedLine) : null);
+        delta.setRemovedItemId(removedItemId);
+
+        long totalQuantity = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal selectedAmount = BigDecimal.ZERO;
+        for (CartStore.Line line : state.getLines().values()) {
+            totalQuantity += line.getQuantity();
+            totalAmount = totalAmount.add(line.getTotalPrice());
+            if (line.isSelected()) {
+                selectedAmount = selectedAmount.add(line.getTotalPrice());
+            }
+        }
+        delta.setItemCount((long) state.getLines().size());
+        delta.setTotalQuantity(totalQuantity);
+        delta.setTotalAmount(totalAmount);
+        delta.setSelectedAmount(selectedAmount);
+        return delta;
+    }
+
+    private CartResponse convertToResponse(CartStore.CartState state) {
+        CartResponse response = new CartResponse();
+        response.setId(state.getCartId());
+        response.setUserId(state.getUserId());
+        response.setCreatedAt(state.getCreatedAt());
+        response.setUpdatedAt(state.getUpdatedAt());
+        response.setVersion(state.getVersion());
+
+        List<CartResponse.CartItemResponse> itemResponses = state.getLines().values().stream()
+                .map(this::convertLineToResponse)
+                .collect(Collectors.toList());
+        // Stored lines keep no product entity, so fetch every referenced product in one query
+        Set<Long> productIds = itemResponses.stream()
+                .map(CartResponse.CartItemResponse::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productIds.isEmpty() ? new HashMap<>()
+                : productRepository.findAllById(productIds).stream()
+                        .collect(Collectors.toMap(Product::getId, product -> product));
+        revalidate(state.getUserId(), itemResponses, products);
+        response.setItems(itemResponses);
+        response.setTotalAmount(itemResponses.stream()
+                .map(CartResponse.CartItemResponse::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        return response;
+    }
+
+    private CartResponse.CartItemResponse convertLineToResponse(CartStore.Line line) {
+        CartResponse.CartItemResponse response = new CartResponse.CartItemResponse();
+        response.setId(line.getId());
+        response.setProductId(line.getProductId());
+        response.setProductName(line.getProductName());
+        response.setProductImage(""); // Images handled in frontend
+        response.setSize(line.getSize());
+        response.setUnitPrice(line.getUnitPrice());
+        response.setQuantity(line.getQuantity());
+        response.setTotalPrice(line.getTotalPrice());
+        response.setSelected(line.isSelected());
+        return response;
     }
 
     private CartResponse convertToResponse(Cart cart) {
@@ -180,11 +616,18 @@ public class CartService {
         response.setUserId(cart.getUser().getId());
         response.setCreatedAt(cart.getCreatedAt());
         response.setUpdatedAt(cart.getUpdatedAt());
+        response.setVersion(cart.getVersion());
 
         if (cart.getItems() != null) {
             List<CartResponse.CartItemResponse> itemResponses = cart.getItems().stream()
                     .map(this::convertItemToResponse)
                     .collect(Collectors.toList());
+            // Products were fetched with the cart lines, so revalidation costs no extra queries
+            Map<Long, Product> products = new HashMap<>();
+            for (CartItem item : cart.getItems()) {
+                products.put(item.getProduct().getId(), item.getProduct());
+            }
+            revalidate(cart.getUser().getId(), itemResponses, products);
             response.setItems(itemResponses);
 
             // Calculate total
@@ -200,6 +643,49 @@ public class CartService {
         return response;
     }
 
+    /**
+     * Flags each line with its current availability and the change in price since it was added.
+     * Each product's inventory is parsed once however many of its sizes are in the cart.
+     * Stock the user holds themselves counts as available to them.
+     */
+    private void revalidate(Long userId, List<CartResponse.CartItemResponse> items, Map<Long, Product> products) {
+        Map<Long, Map<String, ProductSizeInventoryService.SizeInventoryData>> inventories = new HashMap<>();
+        for (CartResponse.CartItemResponse item : items) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                item.setAvailability(CartLineAvailability.UNAVAILABLE);
+                item.setAvailableQuantity(0);
+                continue;
+            }
+
+            BigDecimal currentPrice = BigDecimal.valueOf(product.getPrice());
+            item.setCurrentUnitPrice(currentPrice);
+            item.setPriceDelta(item.getUnitPrice() != null ? currentPrice.subtract(item.getUnitPrice()) : BigDecimal.ZERO);
+
+            ProductSizeInventoryService.SizeInventoryData data = inventories
+                    .computeIfAbsent(product.getId(), id -> sizeInventoryService.getInventory(product))
+                    .get(item.getSize());
+            if (data == null) {
+                item.setAvailability(CartLineAvailability.UNAVAILABLE);
+                item.setAvailableQuantity(0);
+            } else {
+                int available = Math.max(0, data.getAvailable() + ownHold(userId, product.getId(), item.getSize()));
+                item.setAvailableQuantity(available);
+                if (available == 0) {
+                    item.setAvailability(CartLineAvailability.OUT_OF_STOCK);
+                } else if (available < item.getQuantity()) {
+                    item.setAvailability(CartLineAvailability.INSUFFICIENT_STOCK);
+                } else {
+                    item.setAvailability(CartLineAvailability.AVAILABLE);
+                }
+            }
+        }
+    }
+
+    private int ownHold(Long userId, Long productId, String size) {
+        return inventoryHoldService.isEnabled() ? inventoryHoldService.getHeldQuantity(userId, productId, size) : 0;
+    }
+
     private CartResponse.CartItemResponse convertItemToResponse(CartItem item) {
         CartResponse.CartItemResponse response = new CartResponse.CartItemResponse();
         response.setId(item.getId());
@@ -210,6 +696,7 @@ public class CartService {
         response.setUnitPrice(item.getUnitPrice());
         response.setQuantity(item.getQuantity());
         response.setTotalPrice(item.getTotalPrice());
+        response.setSelected(item.isSelected());
         return response;
     }
 }
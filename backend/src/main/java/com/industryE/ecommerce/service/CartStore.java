@@ -0,0 +1,525 @@
+package com.industryE.ecommerce.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.industryE.ecommerce.entity.Cart;
+import com.industryE.ecommerce.entity.CartItem;
+import com.industryE.ecommerce.entity.User;
+import com.industryE.ecommerce.repository.CartRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional write-behind store for active carts ({@code app.cart.store.enabled=true}).
+ * Carts are kept in an LRU map keyed by user id and rehydrated from the database on a miss.
+ * Quantity, selection and removal changes only mark the cart dirty; a scheduled flusher writes all
+ * dirty carts to carts/cart_items in JDBC batches, so repeated tweaks to the same line collapse into
+ * one UPDATE. {@code app.cart.store.flush-interval-ms} bounds how long a change can live only in memory.
+ * The map is per instance, so this mode needs a single backend or sticky sessions.
+ */
+@Component
+public class CartStore {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.cart.store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cart.store.max-carts:10000}")
+    private int maxCarts;
+
+    // Access-ordered, so the eldest entry is the least recently used cart
+    private final Map<Long, CartState> carts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CartState> eldest) {
+            if (size() <= maxCarts) {
+                return false;
+            }
+            // Keep evicted carts reachable until their pending changes are flushed
+            evicted.put(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+    };
+    private final Map<Long, CartState> evicted = new HashMap<>();
+
+    // Serializes flushes so a cart handed back to the database path is never overwritten by a late flush
+    private final Object flushLock = new Object();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Whether the user's cart is held in memory, so background jobs leave its rows alone
+    public boolean isActive(Long userId) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (carts) {
+            return carts.containsKey(userId) || evicted.containsKey(userId);
+        }
+    }
+
+    /**
+     * Runs the callback against the user's cart while holding its lock, loading the cart from the
+     * database on a miss. The callback is responsible for calling {@link CartState#markDirty} on changes.
+     * In a read-write transaction the changes are undone if it rolls back, since the holds and rows
+     * written alongside them are gone.
+     */
+    public <T> T withCart(User user, Function<CartState, T> callback) {
+        while (true) {
+            CartState state = load(user);
+            synchronized (state) {
+                // Skip carts that were dropped from the store after we looked them up
+                if (!state.detached) {
+                    boolean undoable = TransactionSynchronizationManager.isSynchronizationActive()
+                            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+                    CartState before = undoable ? state.copy() : null;
+                    try {
+                        return callback.apply(state);
+                    } finally {
+                        if (undoable) {
+                            undoOnRollback(state, before, state.version);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void undoOnRollback(CartState state, CartState before, long after) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                synchronized (state) {
+                    if (state.detached) {
+                        return;
+                    }
+                    if (state.version == after) {
+                        state.restore(before);
+                        return;
+                    }
+                }
+                // Another request built on the rolled-back change; start over from the database
+                System.err.println("Dropping the stored cart of user " + state.userId + " after a rolled-back change");
+                discard(state);
+            }
+        });
+    }
+
+    private void discard(CartState state) {
+        synchronized (carts) {
+            synchronized (state) {
+                carts.remove(state.userId, state);
+                evicted.remove(state.userId, state);
+                state.detached = true;
+            }
+        }
+    }
+
+    /**
+     * Writes any pending changes for the user's cart and drops it from the store, so callers can
+     * work on the database rows directly (batch updates, clearing, checkout).
+     */
+    public void flushAndEvict(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            CartState state;
+            synchronized (carts) {
+                state = carts.remove(userId);
+                CartState pending = evicted.remove(userId);
+                if (state == null) {
+                    state = pending;
+                }
+            }
+            if (state == null) {
+                return;
+            }
+            FlushBatch batch = new FlushBatch();
+            synchronized (state) {
+                state.detached = true;
+                batch.collect(state);
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                batch.restore();
+                synchronized (carts) {
+                    carts.putIfAbsent(userId, state);
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.store.flush-interval-ms:1000}")
+    public void flushDirtyCarts() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<CartState> states;
+            List<CartState> pendingEvictions;
+            synchronized (carts) {
+                states = new ArrayList<>(carts.values());
+                pendingEvictions = new ArrayList<>(evicted.values());
+            }
+
+            FlushBatch batch = new FlushBatch();
+            for (CartState state : states) {
+                synchronized (state) {
+                    batch.collect(state);
+                }
+            }
+            for (CartState state : pendingEvictions) {
+                synchronized (state) {
+                    batch.collect(state);
+                }
+            }
+
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // Put the changes back so the next run retries them
+                System.err.println("Cart write-behind flush failed, will retry: " + e.getMessage());
+                batch.restore();
+                return;
+            }
+
+            // Drop flushed evictions unless they were reloaded or changed again meanwhile
+            synchronized (carts) {
+                for (CartState state : pendingEvictions) {
+                    synchronized (state) {
+                        if (!state.dirty && evicted.remove(state.userId, state)) {
+                            state.detached = true;
+                        }
+                    }
+                }
+            }
+            if (batch.cartCount() > 0) {
+                System.out.println("Flushed " + batch.cartCount() + " carts (" + batch.lineUpdates.size()
+                        + " line updates, " + batch.lineDeletes.size() + " line deletes)");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirtyCarts();
+    }
+
+    private CartState load(User user) {
+        synchronized (carts) {
+            CartState state = carts.get(user.getId());
+            if (state != null) {
+                return state;
+            }
+            // Evicted but not yet flushed: bring it back rather than reading stale rows
+            state = evicted.remove(user.getId());
+            if (state != null) {
+                carts.put(user.getId(), state);
+                return state;
+            }
+        }
+
+        // Wait out any flush in progress so the rows we read are current
+        CartState loaded;
+        synchronized (flushLock) {
+            loaded = rehydrate(user);
+        }
+        synchronized (carts) {
+            // Another request may have loaded the same cart in the meantime
+            CartState existing = carts.get(user.getId());
+            if (existing != null) {
+                return existing;
+            }
+            carts.put(user.getId(), loaded);
+            return loaded;
+        }
+    }
+
+    private CartState rehydrate(User user) {
+        CartState state = new CartState(user.getId());
+        Optional<Cart> cartOpt = cartRepository.findByUserIdWithItems(user.getId());
+        if (cartOpt.isPresent()) {
+            Cart cart = cartOpt.get();
+            state.cartId = cart.getId();
+            state.version = cart.getVersion();
+            state.createdAt = cart.getCreatedAt();
+            state.updatedAt = cart.getUpdatedAt();
+            if (cart.getItems() != null) {
+                for (CartItem item : cart.getItems()) {
+                    state.lines.put(item.getId(), new Line(item));
+                }
+            }
+        }
+        return state;
+    }
+
+    private void write(FlushBatch batch) {
+        if (batch.cartCount() == 0) {
+            return;
+        }
+        // Own transaction, so a rollback in the calling request can't discard changes already dropped from memory
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status -> {
+            if (!batch.lineDeletes.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE id = ?", batch.lineDeletes, batch.lineDeletes.size(),
+                        (ps, id) -> ps.setLong(1, id));
+            }
+            if (!batch.lineUpdates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ?, total_price = ?, selected = ? WHERE id = ?",
+                        batch.lineUpdates, batch.lineUpdates.size(), (ps, line) -> {
+                            ps.setInt(1, line.quantity);
+                            ps.setBigDecimal(2, line.getTotalPrice());
+                            ps.setBoolean(3, line.selected);
+                            ps.setLong(4, line.id);
+                        });
+            }
+            if (!batch.cartUpdates.isEmpty()) {
+                // Version guard: never overwrite a newer version written through by an add
+                jdbcTemplate.batchUpdate("UPDATE carts SET updated_at = ?, version = ? WHERE id = ? AND version < ?",
+                        batch.cartUpdates, batch.cartUpdates.size(), (ps, cart) -> {
+                            ps.setTimestamp(1, Timestamp.valueOf(cart.updatedAt));
+                            ps.setLong(2, cart.version);
+                            ps.setLong(3, cart.cartId);
+                            ps.setLong(4, cart.version);
+                        });
+            }
+        });
+    }
+
+    /**
+     * In-memory copy of a user's cart. Only touch it inside {@link CartStore#withCart}.
+     * A cart with no database row yet has a null cartId until its first line is inserted.
+     */
+    public static class CartState {
+        private final Long userId;
+        private Long cartId;
+        private long version;
+        private LocalDateTime createdAt = LocalDateTime.now();
+        private LocalDateTime updatedAt = LocalDateTime.now();
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+
+        // Pending changes since the last flush
+        private boolean dirty;
+        private final Set<Long> dirtyLineIds = new LinkedHashSet<>();
+        private final Set<Long> removedLineIds = new LinkedHashSet<>();
+        private boolean detached;
+
+        CartState(Long userId) {
+            this.userId = userId;
+        }
+
+        public Long getUserId() { return userId; }
+        public Long getCartId() { return cartId; }
+        public void setCartId(Long cartId) { this.cartId = cartId; }
+        public long getVersion() { return version; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+        public Map<Long, Line> getLines() { return lines; }
+
+        public Line findLine(Long productId, String size) {
+            for (Line line : lines.values()) {
+                if (line.productId.equals(productId) && line.size.equals(size)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        /** Adds a line that was already inserted into the database. */
+        public void addPersistedLine(CartItem item) {
+            lines.put(item.getId(), new Line(item));
+        }
+
+        public void removeLine(Long lineId) {
+            lines.remove(lineId);
+            dirtyLineIds.remove(lineId);
+            removedLineIds.add(lineId);
+        }
+
+        // Copy of the cart and its pending changes, taken before a change that may roll back
+        private CartState copy() {
+            CartState copy = new CartState(userId);
+            copy.cartId = cartId;
+            copy.version = version;
+            copy.createdAt = createdAt;
+            copy.updatedAt = updatedAt;
+            lines.forEach((id, line) -> copy.lines.put(id, new Line(line)));
+            copy.dirty = dirty;
+            copy.dirtyLineIds.addAll(dirtyLineIds);
+            copy.removedLineIds.addAll(removedLineIds);
+            return copy;
+        }
+
+        /**
+         * Puts back a copy taken before a change that rolled back. A flush may have written the change
+         * meanwhile, so every line is rewritten and the version moves on rather than back.
+         */
+        private void restore(CartState before) {
+            cartId = before.cartId;
+            lines.clear();
+            before.lines.forEach((id, line) -> lines.put(id, new Line(line)));
+            dirtyLineIds.clear();
+            dirtyLineIds.addAll(lines.keySet());
+            removedLineIds.clear();
+            removedLineIds.addAll(before.removedLineIds);
+            markDirty(null);
+        }
+
+        /** Records a change to the given line (or just the cart when null) and bumps the version; returns the previous version. */
+        public long markDirty(Long changedLineId) {
+            if (changedLineId != null && lines.containsKey(changedLineId)) {
+                dirtyLineIds.add(changedLineId);
+            }
+            long baseVersion = version;
+            version++;
+            updatedAt = LocalDateTime.now();
+            dirty = true;
+            return baseVersion;
+        }
+    }
+
+    /** Cart line as held in memory; product details are copied so responses need no lookups. */
+    public static class Line {
+        private final Long id;
+        private final Long productId;
+        private final String productName;
+        private final String size;
+        private final BigDecimal unitPrice;
+        private int quantity;
+        private boolean selected;
+
+        Line(CartItem item) {
+            this.id = item.getId();
+            this.productId = item.getProduct().getId();
+            this.productName = item.getProduct().getName();
+            this.size = item.getSize();
+            this.unitPrice = item.getUnitPrice();
+            this.quantity = item.getQuantity();
+            this.selected = item.isSelected();
+        }
+
+        // Copy taken when collecting a flush, so the write sees a consistent line
+        private Line(Line other) {
+            this.id = other.id;
+            this.productId = other.productId;
+            this.productName = other.productName;
+            this.size = other.size;
+            this.unitPrice = other.unitPrice;
+            this.quantity = other.quantity;
+            this.selected = other.selected;
+        }
+
+        public Long getId() { return id; }
+        public Long getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public String getSize() { return size; }
+        public BigDecimal getUnitPrice() { return unitPrice; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+        public boolean isSelected() { return selected; }
+        public void setSelected(boolean selected) { this.selected = selected; }
+
+        public BigDecimal getTotalPrice() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    // Coalesced changes from many carts, written together in one transaction
+    private static class FlushBatch {
+        private final List<CartState> collected = new ArrayList<>();
+        private final List<CartSnapshot> cartUpdates = new ArrayList<>();
+        private final List<Line> lineUpdates = new ArrayList<>();
+        private final List<Long> lineDeletes = new ArrayList<>();
+        private final Map<CartState, Set<Long>> collectedLines = new HashMap<>();
+        private final Map<CartState, Set<Long>> collectedRemovals = new HashMap<>();
+
+        // Caller holds the state's lock
+        void collect(CartState state) {
+            if (!state.dirty) {
+                return;
+            }
+            for (Long lineId : state.dirtyLineIds) {
+                Line line = state.lines.get(lineId);
+                if (line != null) {
+                    lineUpdates.add(new Line(line));
+                }
+            }
+            lineDeletes.addAll(state.removedLineIds);
+            if (state.cartId != null) {
+                cartUpdates.add(new CartSnapshot(state.cartId, state.version, state.updatedAt));
+            }
+
+            collected.add(state);
+            collectedLines.put(state, new LinkedHashSet<>(state.dirtyLineIds));
+            collectedRemovals.put(state, new LinkedHashSet<>(state.removedLineIds));
+            state.dirtyLineIds.clear();
+            state.removedLineIds.clear();
+            state.dirty = false;
+        }
+
+        // Marks collected changes dirty again after a failed write
+        void restore() {
+            for (CartState state : collected) {
+                synchronized (state) {
+                    state.dirtyLineIds.addAll(collectedLines.get(state));
+                    state.removedLineIds.addAll(collectedRemovals.get(state));
+                    state.dirty = true;
+                    state.detached = false;
+                }
+            }
+        }
+
+        int cartCount() {
+            return collected.size();
+        }
+    }
+
+    private static class CartSnapshot {
+        private final Long cartId;
+        private final long version;
+        private final LocalDateTime updatedAt;
+
+        CartSnapshot(Long cartId, long version, LocalDateTime updatedAt) {
+            this.cartId = cartId;
+            this.version = version;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
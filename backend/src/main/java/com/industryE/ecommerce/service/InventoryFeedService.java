@@ -0,0 +1,392 @@
+package com.industryE.ecommerce.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-Sent Events feed of per-product inventory changes for open product pages. A committed
+ * change is encoded once into a complete SSE frame and the same bytes are queued for every
+ * subscriber of that product; a small pool of writer threads drains the queues, so the committing
+ * thread never waits on a client socket. A subscriber whose queue fills up is disconnected rather
+ * than slowing anyone else down: its EventSource reconnects and starts again from a fresh
+ * snapshot. So is one whose socket write has been blocked for longer than the send timeout; its
+ * writer thread stays stuck until the container gives up on the write, so spare writers stand in
+ * meanwhile. Comment-only heartbeats keep idle connections from being closed by proxies.
+ * <p>
+ * Local writes are pushed as they commit. Writes made on other instances are caught by a short
+ * poll that re-reads just the watched products into the {@link InventoryReadModel}, and by every
+ * full reload; both push whatever differs from what this instance last sent for the product.
+ */
+@Service
+public class InventoryFeedService {
+
+    @Value("${app.inventory.feed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.feed.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${app.inventory.feed.max-pending-events:32}")
+    private int maxPendingEvents;
+
+    @Value("${app.inventory.feed.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${app.inventory.feed.send-timeout-ms:5000}")
+    private long sendTimeoutMillis;
+
+    @Autowired
+    private InventoryReadModel readModel;
+
+    private final int writerThreads;
+
+    private final ThreadPoolExecutor writers;
+
+    // Subscribers dropped for a send that is still blocked, each holding a writer thread
+    private final Set<Subscriber> stalledSends = ConcurrentHashMap.newKeySet();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Availability per size last queued to a watched product's subscribers; every send goes through compute
+    // on it, so sends for one product never interleave. Dropped by the sync pass once nobody watches.
+    private final Map<Long, Map<String, Integer>> sent = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final AtomicLong eventId = new AtomicLong();
+
+    private static final byte[] HEARTBEAT = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    public InventoryFeedService(@Value("${app.inventory.feed.writer-threads:4}") int writerThreads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writerThreads = writerThreads;
+        // Grows past writerThreads only while writers are stuck, up to one spare each
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads * 2, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "inventory-feed-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Writes pre-encoded SSE frames as raw bytes, with the event-stream content type
+    private static final class FeedEmitter extends ResponseBodyEmitter {
+        FeedEmitter(long timeout) {
+            super(timeout);
+        }
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            outputMessage.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+            outputMessage.getHeaders().setCacheControl("no-cache");
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+        final Long productId;
+        final FeedEmitter emitter;
+        final ArrayBlockingQueue<byte[]> pending = new ArrayBlockingQueue<>(maxPendingEvents);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        volatile boolean completeRequested;
+        volatile boolean sending;
+        volatile long sendStarted;
+
+        Subscriber(Long productId, FeedEmitter emitter) {
+            this.productId = productId;
+            this.emitter = emitter;
+        }
+
+        void offer(byte[] frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!pending.offer(frame)) {
+                // Too far behind to be worth catching up; the reconnect brings a fresh snapshot
+                close(true);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                while (true) {
+                    // Marked before closed is read, so a close either sees this send or stops it
+                    sendStarted = System.nanoTime();
+                    sending = true;
+                    byte[] frame = closed.get() ? null : pending.poll();
+                    if (frame == null) {
+                        sending = false;
+                        break;
+                    }
+                    try {
+                        emitter.send(frame, MediaType.APPLICATION_OCTET_STREAM);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client gone; the container reports it to the emitter as well
+                        close(false);
+                        break;
+                    } finally {
+                        sending = false;
+                        stalledSends.remove(this);
+                    }
+                }
+                if (completeRequested) {
+                    completeOnce();
+                }
+                draining.set(false);
+                // An offer that arrived after the last poll but saw draining still set is picked up here
+            } while (!pending.isEmpty() && !closed.get() && draining.compareAndSet(false, true));
+        }
+
+        void close(boolean complete) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            // Under the map's lock for this product, so a concurrent subscribe never adds to a set dropped here
+            subscribers.computeIfPresent(productId, (id, watchers) -> {
+                watchers.remove(this);
+                return watchers.isEmpty() ? null : watchers;
+            });
+            subscriberCount.decrementAndGet();
+            pending.clear();
+            if (complete) {
+                completeRequested = true;
+                // complete() waits on the emitter's lock behind a send in flight, so that send's writer completes it
+                if (!sending) {
+                    completeOnce();
+                }
+            }
+        }
+
+        void completeOnce() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Opens a stream of {@code productId}'s inventory changes, starting with a {@code snapshot}
+     * event of {@code available} per size; later {@code inventory} events carry only the sizes that
+     * changed. Throws when the feed is off or full.
+     */
+    public ResponseBodyEmitter subscribe(Long productId, Map<String, Integer> available) {
+        if (!enabled) {
+            throw new RuntimeException("Inventory feed is disabled");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RuntimeException("Too many inventory feed subscribers, try again later");
+        }
+        FeedEmitter emitter = new FeedEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(productId, emitter);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(false));
+        emitter.onError(e -> subscriber.close(false));
+        subscribers.compute(productId, (id, watchers) -> {
+            Set<Subscriber> updated = watchers != null ? watchers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", productId);
+        payload.put("available", available);
+        byte[] snapshot = frame("snapshot", payload);
+        // The newcomer's snapshot becomes what everyone watching was sent, so earlier subscribers get the difference
+        sent.compute(productId, (id, last) -> {
+            subscriber.offer(snapshot);
+            if (last != null) {
+                offerChanges(productId, "SYNC", last, available, subscriber);
+            }
+            return Map.copyOf(available);
+        });
+        return emitter;
+    }
+
+    /**
+     * Sends the new availability of the given sizes to the product's subscribers once the caller's
+     * transaction commits, or right away without one. Encoded at most once, and not at all when
+     * nobody is watching the product.
+     */
+    public void publishAfterCommit(Long productId, Object reason, Map<String, Integer> available) {
+        if (!enabled || available.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> sent.computeIfPresent(productId, (id, last) -> {
+            offer(productId, reason, available, null);
+            Map<String, Integer> updated = new HashMap<>(last);
+            updated.putAll(available);
+            return updated;
+        }));
+    }
+
+    /**
+     * Re-reads the watched products into the read model and sends their subscribers what changed,
+     * which is how writes committed on other instances reach them.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.feed.sync-interval-ms:2000}",
+               initialDelayString = "${app.inventory.feed.sync-interval-ms:2000}")
+    public void sync() {
+        // Under the key's lock, so a subscribe setting a product's baseline is never undone here
+        for (Long productId : sent.keySet()) {
+            sent.computeIfPresent(productId, (id, last) -> subscribers.containsKey(id) ? last : null);
+        }
+        if (sent.isEmpty()) {
+            return;
+        }
+        try {
+            readModel.refresh(sent.keySet());
+        } catch (RuntimeException e) {
+            System.err.println("Could not refresh watched products for the inventory feed: " + e.getMessage());
+            return;
+        }
+        sendChanges();
+    }
+
+    /** Sends every watched product's subscribers the sizes the read model now has differently. */
+    @EventListener(InventoryReadModel.Reloaded.class)
+    public void sendChanges() {
+        for (Long productId : sent.keySet()) {
+            InventoryReadModel.Snapshot snapshot = readModel.get(productId);
+            if (snapshot == null) {
+                continue;
+            }
+            Map<String, Integer> available = new LinkedHashMap<>();
+            for (int position = 0; position < snapshot.count(); position++) {
+                int i = snapshot.displayIndex(position);
+                available.put(snapshot.size(i), snapshot.forSale(i));
+            }
+            sent.computeIfPresent(productId, (id, last) -> {
+                Map<String, Integer> changed = offerChanges(productId, "SYNC", last, available, null);
+                if (changed.isEmpty()) {
+                    return last;
+                }
+                Map<String, Integer> updated = new HashMap<>(last);
+                updated.putAll(changed);
+                return updated;
+            });
+        }
+    }
+
+    // Sends the sizes whose availability differs from what was last sent, and returns them
+    private Map<String, Integer> offerChanges(Long productId, Object reason, Map<String, Integer> last,
+            Map<String, Integer> available, Subscriber except) {
+        Map<String, Integer> changed = new LinkedHashMap<>();
+        available.forEach((size, units) -> {
+            if (!units.equals(last.get(size))) {
+                changed.put(size, units);
+            }
+        });
+        if (!changed.isEmpty()) {
+            offer(productId, reason, changed, except);
+        }
+        return changed;
+    }
+
+    private void offer(Long productId, Object reason, Map<String, Integer> available, Subscriber except) {
+        Set<Subscriber> watchers = subscribers.get(productId);
+        if (watchers == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", productId);
+        payload.put("reason", reason);
+        payload.put("available", available);
+        byte[] frame = frame("inventory", payload);
+        for (Subscriber subscriber : watchers) {
+            if (subscriber != except) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.feed.heartbeat-interval-ms:15000}",
+               initialDelayString = "${app.inventory.feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> watchers : subscribers.values()) {
+            for (Subscriber subscriber : watchers) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Disconnects subscribers whose send has been blocked for longer than the send timeout, and
+     * sizes the writer pool so threads stuck in those sends don't hold up everyone else.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.feed.send-timeout-ms:5000}",
+               initialDelayString = "${app.inventory.feed.send-timeout-ms:5000}")
+    public void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> watchers : subscribers.values()) {
+            for (Subscriber subscriber : watchers) {
+                if (subscriber.sending && now - subscriber.sendStarted > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis)) {
+                    stalledSends.add(subscriber);
+                    subscriber.close(true);
+                }
+            }
+        }
+        stalledSends.removeIf(subscriber -> !subscriber.sending);
+        writers.setCorePoolSize(writerThreads + Math.min(writerThreads, stalledSends.size()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> watchers : subscribers.values()) {
+            for (Subscriber subscriber : watchers) {
+                subscriber.close(true);
+            }
+        }
+        writers.shutdown();
+    }
+
+    // One complete SSE frame: id, event name and a single-line JSON data field
+    private byte[] frame(String event, Map<String, Object> payload) {
+        try {
+            String data = objectMapper.writeValueAsString(payload);
+            return ("id: " + eventId.incrementAndGet() + "\nevent: " + event + "\ndata: " + data + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to encode inventory feed event", e);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.industryE.ecommerce.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Soft inventory holds for cart lines. Adding to a cart moves the quantity into the size's "held"
+ * count so other shoppers see it as unavailable; the hold lapses after a TTL unless the cart touches
+ * the line again, and checkout converts it into a real reservation. Expiry deadlines sit in a timing
+ * wheel so refreshing or cancelling a hold never scans the others. Holds are tracked in memory by
+ * the instance that placed them (like the cart store); each instance also records its share of the
+ * held counts in {@code inventory_holds} and keeps a heartbeat, so when an instance stops, its holds
+ * (and only its holds) are released once its heartbeat is older than the TTL.
+ */
+@Service
+public class InventoryHoldService {
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private InventoryShardService shardService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.inventory.holds.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.inventory.holds.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${app.inventory.holds.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${app.inventory.holds.wheel-size:64}")
+    private int wheelSize;
+
+    @Value("${app.inventory.holds.heartbeat-interval-ms:30000}")
+    private long heartbeatIntervalMillis;
+
+    // Owner of the held counts this instance writes; a restart is a new owner
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Owner of held counts written before holds had owners (V12)
+    private static final String LEGACY_INSTANCE = "legacy";
+
+    // userId -> "productId:size" -> hold; guarded by this
+    private final Map<Long, Map<String, Hold>> holds = new HashMap<>();
+    private TimingWheel<Hold> wheel;
+    // Expired quantities not yet released in the database; written on the next tick
+    private final Map<Long, Map<String, Integer>> pendingReleases = new HashMap<>();
+
+    private TransactionTemplate releaseTransaction;
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        releaseTransaction = new TransactionTemplate(transactionManager);
+        releaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerInstance() {
+        heartbeat();
+    }
+
+    /** Proves this instance is alive and releases the holds of instances that stopped beating. */
+    @Scheduled(fixedDelayString = "${app.inventory.holds.heartbeat-interval-ms:30000}",
+               initialDelayString = "${app.inventory.holds.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update("UPDATE inventory_hold_instances SET heartbeat_at = ? WHERE instance_id = ?", now, instanceId) == 0) {
+            jdbcTemplate.update("INSERT INTO inventory_hold_instances (instance_id, heartbeat_at) VALUES (?, ?)", instanceId, now);
+        }
+        jdbcTemplate.update("DELETE FROM inventory_holds WHERE instance_id = ? AND quantity <= 0", instanceId);
+
+        // Holds outlive their TTL only when their instance is gone, so a heartbeat that old means it is
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now()
+                .minusNanos(Math.max(ttlSeconds * 1000, 3 * heartbeatIntervalMillis) * 1_000_000));
+        for (String stopped : jdbcTemplate.queryForList(
+                "SELECT instance_id FROM inventory_hold_instances WHERE heartbeat_at < ?", String.class, cutoff)) {
+            try {
+                Integer released = releaseTransaction.execute(status -> releaseInstance(stopped, cutoff));
+                if (released != null && released > 0) {
+                    System.out.println("Released inventory holds of stopped instance " + stopped + " on " + released + " products");
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to release inventory holds of stopped instance " + stopped + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Holds of a stopped instance can't be released any other way
+    @PreDestroy
+    public void releaseOwnHolds() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            releaseTransaction.execute(status -> releaseInstance(instanceId, null));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to release this instance's inventory holds: " + e.getMessage());
+        }
+    }
+
+    // Releases the instance's held counts unless another instance got there first (or, with a cutoff, it has beaten since)
+    private int releaseInstance(String owner, Timestamp cutoff) {
+        int claimed = cutoff != null
+                ? jdbcTemplate.update("DELETE FROM inventory_hold_instances WHERE instance_id = ? AND heartbeat_at < ?", owner, cutoff)
+                : jdbcTemplate.update("DELETE FROM inventory_hold_instances WHERE instance_id = ?", owner);
+        if (claimed == 0) {
+            return 0;
+        }
+        if (LEGACY_INSTANCE.equals(owner)) {
+            return sizeInventoryService.clearAllHolds();
+        }
+        Map<Long, Map<String, Integer>> releases = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, size, quantity FROM inventory_holds WHERE instance_id = ? AND quantity > 0",
+                rs -> {
+                    addRelease(releases, rs.getLong(1), rs.getString(2), rs.getInt(3));
+                },
+                owner);
+        jdbcTemplate.update("DELETE FROM inventory_holds WHERE instance_id = ?", owner);
+        if (!releases.isEmpty()) {
+            sizeInventoryService.adjustHolds(releases);
+        }
+        return releases.size();
+    }
+
+    /**
+     * Sets the user's hold on each line to the given quantity (0 releases it) and restarts its TTL.
+     * Runs inside the caller's transaction: only the difference from the current hold is written, and
+     * if that transaction rolls back the previous holds are put back. Hot sizes are never held, since
+     * holding one would lock the product row its shards exist to avoid; checkout decides for them, and
+     * a hold placed before the size turned hot is released like any other.
+     */
+    public void setHolds(Long userId, List<HoldLine> lines) {
+        Map<Long, Map<String, Integer>> deltas = new HashMap<>();
+        Map<String, Hold> previous = new HashMap<>();
+        Map<String, Hold> placed = new HashMap<>();
+        synchronized (this) {
+            Map<String, Hold> userHolds = holds.computeIfAbsent(userId, id -> new HashMap<>());
+            long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+            for (HoldLine line : lines) {
+                int quantity = shardService.isHot(line.productId, line.size) ? 0 : line.quantity;
+                Hold current = userHolds.remove(line.key());
+                int currentQuantity = 0;
+                if (current != null) {
+                    current.timer.cancel();
+                    currentQuantity = current.quantity;
+                }
+                previous.putIfAbsent(line.key(), current);
+                if (quantity > 0) {
+                    Hold hold = new Hold(userId, line.productId, line.size, quantity);
+                    hold.timer = wheel.schedule(hold, expiresAt, new ArrayList<>());
+                    userHolds.put(line.key(), hold);
+                    placed.put(line.key(), hold);
+                }
+                int delta = quantity - currentQuantity;
+                if (delta != 0) {
+                    deltas.computeIfAbsent(line.productId, id -> new HashMap<>())
+                            .merge(line.size, delta, Integer::sum);
+                }
+            }
+            if (userHolds.isEmpty()) {
+                holds.remove(userId);
+            }
+        }
+
+        try {
+            if (!deltas.isEmpty()) {
+                adjustOwnHolds(deltas);
+            }
+        } catch (RuntimeException e) {
+            restore(userId, previous, placed);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        restore(userId, previous, placed);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Releases the user's holds on the given lines, e.g. when they are removed or checked out. */
+    public void releaseHolds(Long userId, List<HoldLine> lines) {
+        List<HoldLine> releases = new ArrayList<>();
+        for (HoldLine line : lines) {
+            releases.add(new HoldLine(line.productId, line.size, 0));
+        }
+        setHolds(userId, releases);
+    }
+
+    /** Releases every hold the user has, e.g. when the cart is cleared. */
+    public void releaseAllForUser(Long userId) {
+        List<HoldLine> releases = new ArrayList<>();
+        synchronized (this) {
+            for (Hold hold : holds.getOrDefault(userId, Map.of()).values()) {
+                releases.add(new HoldLine(hold.productId, hold.size, 0));
+            }
+        }
+        if (!releases.isEmpty()) {
+            setHolds(userId, releases);
+        }
+    }
+
+    // Quantity of a size held by this user, which must not count against their own cart
+    public synchronized int getHeldQuantity(Long userId, Long productId, String size) {
+        Hold hold = holds.getOrDefault(userId, Map.of()).get(productId + ":" + size);
+        return hold != null ? hold.quantity : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.holds.tick-ms:1000}")
+    public void expireHolds() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Map<String, Integer>> releases;
+        int expired = 0;
+        synchronized (this) {
+            for (Hold hold : wheel.advance(System.currentTimeMillis())) {
+                if (removeIfCurrent(hold)) {
+                    addRelease(pendingReleases, hold.productId, hold.size, hold.quantity);
+                    expired++;
+                }
+            }
+            if (pendingReleases.isEmpty()) {
+                return;
+            }
+            releases = new HashMap<>(pendingReleases);
+            pendingReleases.clear();
+        }
+
+        try {
+            releaseTransaction.executeWithoutResult(status -> adjustOwnHolds(releases));
+            if (expired > 0) {
+                System.out.println("Expired " + expired + " inventory holds across " + releases.size() + " products");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to release expired inventory holds: " + e.getMessage());
+            synchronized (this) {
+                releases.forEach((productId, sizes) ->
+                        sizes.forEach((size, delta) -> addRelease(pendingReleases, productId, size, -delta)));
+            }
+        }
+    }
+
+    // Applies hold changes to the products and to this instance's share of the held counts, in one transaction
+    private void adjustOwnHolds(Map<Long, Map<String, Integer>> deltas) {
+        sizeInventoryService.adjustHolds(deltas);
+        List<Object[]> keys = new ArrayList<>();
+        List<Object[]> changes = new ArrayList<>();
+        deltas.forEach((productId, sizes) -> sizes.forEach((size, delta) -> {
+            keys.add(new Object[] { instanceId, productId, size });
+            changes.add(new Object[] { delta, instanceId, productId, size });
+        }));
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO inventory_holds (instance_id, product_id, size, quantity) VALUES (?, ?, ?, 0)", keys);
+        jdbcTemplate.batchUpdate("UPDATE inventory_holds SET quantity = quantity + ? WHERE instance_id = ? AND product_id = ? AND size = ?", changes);
+    }
+
+    // Undoes a rolled-back setHolds, leaving alone any line another change has replaced since
+    private synchronized void restore(Long userId, Map<String, Hold> previous, Map<String, Hold> placed) {
+        Map<String, Hold> userHolds = holds.computeIfAbsent(userId, id -> new HashMap<>());
+        List<Hold> dueNow = new ArrayList<>();
+        for (Map.Entry<String, Hold> entry : previous.entrySet()) {
+            Hold current = userHolds.get(entry.getKey());
+            if (current != placed.get(entry.getKey())) {
+                continue;
+            }
+            if (current != null) {
+                current.timer.cancel();
+                userHolds.remove(entry.getKey());
+            }
+            Hold old = entry.getValue();
+            if (old != null) {
+                Hold hold = new Hold(userId, old.productId, old.size, old.quantity);
+                hold.timer = wheel.schedule(hold, old.timer.getExpirationMillis(), dueNow);
+                userHolds.put(entry.getKey(), hold);
+            }
+        }
+        if (userHolds.isEmpty()) {
+            holds.remove(userId);
+        }
+        // A restored hold that lapsed meanwhile is released on the next tick
+        for (Hold hold : dueNow) {
+            if (removeIfCurrent(hold)) {
+                addRelease(pendingReleases, hold.productId, hold.size, hold.quantity);
+            }
+        }
+    }
+
+    // A superseded hold's timer may still fire; only the hold currently registered counts
+    private boolean removeIfCurrent(Hold hold) {
+        Map<String, Hold> userHolds = holds.get(hold.userId);
+        if (userHolds == null || userHolds.get(hold.key()) != hold) {
+            return false;
+        }
+        userHolds.remove(hold.key());
+        if (userHolds.isEmpty()) {
+            holds.remove(hold.userId);
+        }
+        return true;
+    }
+
+    private static void addRelease(Map<Long, Map<String, Integer>> releases, Long productId, String size, int quantity) {
+        releases.computeIfAbsent(productId, id -> new HashMap<>()).merge(size, -quantity, Integer::sum);
+    }
+
+    public static class HoldLine {
+        private final Long productId;
+        private final String size;
+        private final int quantity;
+
+        public HoldLine(Long productId, String size, int quantity) {
+            this.productId = productId;
+            this.size = size;
+            this.quantity = quantity;
+        }
+
+        private String key() {
+            return productId + ":" + size;
+        }
+    }
+
+    private static class Hold {
+        private final Long userId;
+        private final Long productId;
+        private final String size;
+        private final int quantity;
+        private TimingWheel.Timer<Hold> timer;
+
+        Hold(Long userId, Long productId, String size, int quantity) {
+            this.userId = userId;
+            this.productId = productId;
+            this.size = size;
+            this.quantity = quantity;
+        }
+
+        private String key() {
+            return productId + ":" + size;
+        }
+    }
+}
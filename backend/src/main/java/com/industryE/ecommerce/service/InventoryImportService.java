@@ -0,0 +1,313 @@
+package com.industryE.ecommerce.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.industryE.ecommerce.dto.InventoryImportResponse;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Streams a warehouse restock file (CSV or NDJSON, one size per row) into product inventory. Rows
+ * are parsed as they arrive and applied {@code app.inventory.import.chunk-size} at a time: each
+ * chunk is grouped by product and written in one transaction through
+ * {@link ProductSizeInventoryService#importQuantities}, retried on version conflicts. A row that
+ * doesn't parse, or whose product doesn't exist, is reported by line number; a chunk that fails
+ * reports all its rows, and the import carries on with the next chunk. Once a chunk commits, its
+ * sizes are offered to waiting backorders.
+ */
+@Service
+public class InventoryImportService {
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private BackorderService backorderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${app.inventory.import.max-reported-errors:500}")
+    private int maxReportedErrors;
+
+    private static final class Row {
+        final long line;
+        final long productId;
+        final String size;
+        final int quantity;
+
+        Row(long line, long productId, String size, int quantity) {
+            this.line = line;
+            this.productId = productId;
+            this.size = size;
+            this.quantity = quantity;
+        }
+    }
+
+    private final class Progress {
+        long rowsRead;
+        long rowsApplied;
+        long rowsFailed;
+        int chunks;
+        long backordersAllocated;
+        final List<InventoryImportResponse.RowError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            rowsFailed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new InventoryImportResponse.RowError(line, message));
+            }
+        }
+    }
+
+    /**
+     * Imports the rows of {@code body}. CSV rows are {@code productId,size,quantity}, optionally under
+     * a header naming those columns in any order; NDJSON rows are objects with the same fields.
+     * Quantities replace the stored stock, or with {@code add} are added to it.
+     */
+    public InventoryImportResponse importStream(InputStream body, boolean ndjson, boolean add) throws IOException {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        // CSV column positions of productId, size and quantity; replaced if the file has a header
+        int[] columns = { 0, 1, 2 };
+        boolean firstRow = true;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            if (!ndjson && firstRow) {
+                firstRow = false;
+                if (readHeader(line, columns)) {
+                    continue;
+                }
+            }
+            progress.rowsRead++;
+            try {
+                Row row = ndjson ? parseJson(lineNumber, line) : parseCsv(lineNumber, line, columns);
+                chunk.add(row);
+            } catch (RuntimeException e) {
+                progress.fail(lineNumber, e.getMessage());
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                applyChunk(chunk, add, progress);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, add, progress);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.println("Inventory import: " + progress.rowsApplied + " of " + progress.rowsRead + " rows applied in "
+                + progress.chunks + " chunks, " + elapsed + " ms");
+        InventoryImportResponse response = new InventoryImportResponse(progress.rowsRead, progress.rowsApplied,
+                progress.rowsFailed, progress.chunks, elapsed, progress.errors);
+        response.setBackordersAllocated(progress.backordersAllocated);
+        return response;
+    }
+
+    private void applyChunk(List<Row> rows, boolean add, Progress progress) {
+        progress.chunks++;
+        // Later rows for the same size replace earlier ones, or add up when adding
+        Map<Long, Map<String, Integer>> quantities = new LinkedHashMap<>();
+        for (Row row : rows) {
+            Map<String, Integer> sizes = quantities.computeIfAbsent(row.productId, id -> new LinkedHashMap<>());
+            if (add) {
+                sizes.merge(row.size, row.quantity, Integer::sum);
+            } else {
+                sizes.put(row.size, row.quantity);
+            }
+        }
+
+        try {
+            Set<Long> missing = optimisticRetryService.execute("inventory.import",
+                    () -> sizeInventoryService.importQuantities(quantities, add));
+            for (Row row : rows) {
+                if (missing.contains(row.productId)) {
+                    progress.fail(row.line, "Product " + row.productId + " not found");
+                } else {
+                    progress.rowsApplied++;
+                }
+            }
+            // The chunk has committed; restocked sizes go to their backorder queues first
+            Map<Long, Set<String>> restocked = new LinkedHashMap<>();
+            quantities.forEach((productId, sizes) -> {
+                if (!missing.contains(productId)) {
+                    restocked.put(productId, sizes.keySet());
+                }
+            });
+            progress.backordersAllocated += backorderService.allocate(restocked);
+        } catch (RuntimeException e) {
+            System.err.println("Inventory import chunk of " + rows.size() + " rows failed: " + e.getMessage());
+            for (Row row : rows) {
+                progress.fail(row.line, "Chunk not applied: " + e.getMessage());
+            }
+        } finally {
+            // The request's persistence context outlives each chunk's transaction; drop what the chunk loaded
+            entityManager.clear();
+        }
+    }
+
+    // Takes the column order from a header line; false if the line is a data row
+    private boolean readHeader(String line, int[] columns) {
+        List<String> fields = splitCsv(line);
+        if (isNumber(fields.get(0))) {
+            return false;
+        }
+        columns[0] = columns[1] = columns[2] = -1;
+        for (int i = 0; i < fields.size(); i++) {
+            switch (fields.get(i).toLowerCase().replace("_", "")) {
+                case "productid" -> columns[0] = i;
+                case "size" -> columns[1] = i;
+                case "quantity" -> columns[2] = i;
+                default -> { }
+            }
+        }
+        if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+            throw new RuntimeException("CSV header must name productId, size and quantity columns");
+        }
+        return true;
+    }
+
+    private Row parseCsv(long lineNumber, String line, int[] columns) {
+        List<String> fields = splitCsv(line);
+        int needed = Math.max(columns[0], Math.max(columns[1], columns[2]));
+        if (fields.size() <= needed) {
+            throw new RuntimeException("Expected productId, size and quantity");
+        }
+        return row(lineNumber, fields.get(columns[0]), fields.get(columns[1]), fields.get(columns[2]));
+    }
+
+    private Row parseJson(long lineNumber, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        JsonNode productId = node.get("productId");
+        JsonNode size = node.get("size");
+        JsonNode quantity = node.get("quantity");
+        if (productId == null || size == null || quantity == null) {
+            throw new RuntimeException("Expected productId, size and quantity");
+        }
+        return row(lineNumber, productId.asText(), size.asText(), quantity.asText());
+    }
+
+    private Row row(long lineNumber, String productId, String size, String quantity) {
+        if (size.isEmpty()) {
+            throw new RuntimeException("Size is empty");
+        }
+        long id;
+        int amount;
+        try {
+            id = Long.parseLong(productId);
+            amount = Integer.parseInt(quantity);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Product id and quantity must be whole numbers");
+        }
+        if (amount < 0) {
+            throw new RuntimeException("Quantity must be zero or more");
+        }
+        return new Row(lineNumber, id, size, amount);
+    }
+
+    /**
+     * Splits one CSV line into trimmed fields. A field may be quoted, and then may contain commas
+     * and doubled quotes ({@code "10 ""wide"", EU"}); a quote anywhere else is an error, as is a
+     * quoted field left open, since rows are read a line at a time and can't span lines.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            int start = i;
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < length && line.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new RuntimeException("Unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < length && line.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new RuntimeException("Unexpected text after a quoted field");
+                }
+                fields.add(field.toString().trim());
+            } else {
+                int comma = line.indexOf(',', start);
+                i = comma < 0 ? length : comma;
+                String field = line.substring(start, i).trim();
+                if (field.indexOf('"') >= 0) {
+                    throw new RuntimeException("Quote inside an unquoted field");
+                }
+                fields.add(field);
+            }
+            if (i >= length) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private static boolean isNumber(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (!Character.isDigit(field.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
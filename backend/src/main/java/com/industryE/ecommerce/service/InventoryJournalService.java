@@ -0,0 +1,355 @@
+package com.industryE.ecommerce.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.industryE.ecommerce.Enum.InventoryEntryType;
+import com.industryE.ecommerce.dto.InventoryPointInTimeResponse;
+import com.industryE.ecommerce.entity.InventoryJournalEntry;
+import com.industryE.ecommerce.entity.InventorySnapshot;
+import com.industryE.ecommerce.entity.Product;
+import com.industryE.ecommerce.repository.InventoryJournalRepository;
+import com.industryE.ecommerce.repository.InventorySnapshotRepository;
+import com.industryE.ecommerce.repository.ProductRepository;
+import com.industryE.ecommerce.service.ProductSizeInventoryService.SizeInventoryData;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Keeps an append-only journal of inventory changes next to {@code Product.sizeInventory}, which
+ * stays the current-state view that reads and reservations use. Every write appends one entry per
+ * changed size with the quantity, reserved and held deltas, in the same transaction as the write.
+ * Snapshots fold the journal up to a time so stock at any point can be rebuilt from the latest
+ * snapshot before it plus the entries after it. Entries are placed in time by created_at rather
+ * than id, since pooled ids are handed out ahead of commit order.
+ */
+@Service
+public class InventoryJournalService {
+
+    private static final LocalDateTime JOURNAL_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private InventoryJournalRepository journalRepository;
+
+    @Autowired
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.journal.snapshots.enabled:true}")
+    private boolean snapshotsEnabled;
+
+    // Snapshots stop this far behind now so entries of transactions still running when it is taken are not missed
+    @Value("${app.inventory.journal.snapshots.settle-seconds:300}")
+    private long settleSeconds;
+
+    @Value("${app.inventory.journal.max-entries:1000}")
+    private int maxEntries;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Entries up to this time are covered by snapshots; set once the baseline has been taken
+    private volatile LocalDateTime snapshotWatermark;
+
+    /**
+     * Appends an entry for each of the sizes whose levels differ between {@code before} and
+     * {@code after}. Runs in the caller's transaction so the journal and the product commit together.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long productId, Map<String, SizeInventoryData> before, Map<String, SizeInventoryData> after,
+                       Collection<String> sizes, InventoryEntryType type) {
+        List<InventoryJournalEntry> entries = changes(productId, before, after, sizes, type);
+        if (!entries.isEmpty()) {
+            journalRepository.saveAll(entries);
+        }
+    }
+
+    /** The entries {@link #append} would write, for callers that collect many products' entries first. */
+    public List<InventoryJournalEntry> changes(Long productId, Map<String, SizeInventoryData> before,
+                                               Map<String, SizeInventoryData> after, Collection<String> sizes,
+                                               InventoryEntryType type) {
+        List<InventoryJournalEntry> entries = new ArrayList<>();
+        for (String size : new LinkedHashSet<>(sizes)) {
+            int[] old = levels(before.get(size));
+            int[] now = levels(after.get(size));
+            if (old[0] != now[0] || old[1] != now[1] || old[2] != now[2]) {
+                entries.add(new InventoryJournalEntry(productId, size, type, now[0] - old[0], now[1] - old[1], now[2] - old[2]));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Inserts entries with one JDBC batch instead of through the persistence context, for bulk
+     * writers where per-entity inserts dominate. Ids come from the entity's own pooled generator, so
+     * they never collide with entries saved through {@link #append}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<InventoryJournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator ids = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(InventoryJournalEntry.class).getGenerator();
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (InventoryJournalEntry entry : entries) {
+            entry.setId((Long) ids.generate(session, entry));
+            rows.add(new Object[] { entry.getId(), entry.getProductId(), entry.getSize(), entry.getEntryType().name(),
+                    entry.getQuantityDelta(), entry.getReservedDelta(), entry.getHeldDelta(),
+                    Timestamp.valueOf(entry.getCreatedAt()) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_journal (id, product_id, size, entry_type, quantity_delta, "
+                + "reserved_delta, held_delta, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    /** Stock of each size of the product at the given time, including entries created at that instant. */
+    @Transactional(readOnly = true)
+    public InventoryPointInTimeResponse getStockAt(Long productId, LocalDateTime at) {
+        Map<String, SizeInventoryData> inventory = new HashMap<>();
+        LocalDateTime[] snapshotAt = new LocalDateTime[1];
+        long applied = rebuild(productId, at, inventory, snapshotAt);
+        return new InventoryPointInTimeResponse(productId, at, snapshotAt[0], applied, toLevels(inventory));
+    }
+
+    /**
+     * Rebuilds the current stock from the journal and reports whether it matches the product's
+     * stored inventory, which is how drift between the two would show up.
+     */
+    @Transactional(readOnly = true)
+    public InventoryPointInTimeResponse getCurrentStock(Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, SizeInventoryData> inventory = new HashMap<>();
+        LocalDateTime[] snapshotAt = new LocalDateTime[1];
+        long applied = rebuild(productId, now, inventory, snapshotAt);
+
+        InventoryPointInTimeResponse response = new InventoryPointInTimeResponse(productId, now, snapshotAt[0], applied, toLevels(inventory));
+        response.setMatchesCurrent(sameLevels(inventory, stored(product.getSizeInventoryPacked(), product.getSizeInventory())));
+        return response;
+    }
+
+    /** Journal entries of a product from the given time on, oldest first. */
+    @Transactional(readOnly = true)
+    public List<InventoryJournalEntry> getEntries(Long productId, LocalDateTime since, int limit) {
+        return journalRepository.findByProductIdAndCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(
+                productId, since != null ? since : JOURNAL_START, Limit.of(Math.min(Math.max(limit, 1), maxEntries)));
+    }
+
+    /**
+     * Products without a snapshot get a baseline at the start of the journal: their stored inventory
+     * minus everything already journaled for them, which is the stock they had before the journal
+     * (seed data, or stock from before it existed). Both reads run in one transaction and so see the
+     * same committed state (MySQL's repeatable read), which keeps the baseline right even if orders
+     * are already coming in. Runs ahead of the other startup listeners, which may write to the journal.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void takeBaselineSnapshots() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Integer taken = transaction.execute(status -> {
+            Timestamp latest = jdbcTemplate.queryForObject("SELECT MAX(covers_until) FROM inventory_snapshots", Timestamp.class);
+            snapshotWatermark = latest != null ? latest.toLocalDateTime() : JOURNAL_START;
+
+            Map<Long, Map<String, SizeInventoryData>> baselines = new HashMap<>();
+            jdbcTemplate.query(
+                    "SELECT p.id, p.size_inventory_packed, p.size_inventory FROM products p "
+                            + "WHERE (p.size_inventory_packed IS NOT NULL OR p.size_inventory IS NOT NULL) AND NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.product_id = p.id)",
+                    rs -> {
+                        baselines.put(rs.getLong(1), stored(rs.getBytes(2), rs.getString(3)));
+                    });
+            if (baselines.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.query(
+                    "SELECT j.product_id, j.size, SUM(j.quantity_delta), SUM(j.reserved_delta), SUM(j.held_delta) "
+                            + "FROM inventory_journal j WHERE NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.product_id = j.product_id) "
+                            + "GROUP BY j.product_id, j.size",
+                    rs -> {
+                        Map<String, SizeInventoryData> inventory = baselines.get(rs.getLong(1));
+                        if (inventory == null) {
+                            return;
+                        }
+                        SizeInventoryData data = inventory.computeIfAbsent(rs.getString(2), size -> new SizeInventoryData());
+                        data.setQuantity(data.getQuantity() - rs.getInt(3));
+                        data.setReserved(data.getReserved() - rs.getInt(4));
+                        data.setHeld(data.getHeld() - rs.getInt(5));
+                    });
+
+            List<InventorySnapshot> snapshots = new ArrayList<>();
+            baselines.forEach((productId, inventory) ->
+                    snapshots.add(new InventorySnapshot(productId, JOURNAL_START, serialize(inventory))));
+            snapshotRepository.saveAll(snapshots);
+            return snapshots.size();
+        });
+        if (taken != null && taken > 0) {
+            System.out.println("Took baseline inventory snapshots for " + taken + " products");
+        }
+    }
+
+    /**
+     * Snapshots every product with journal entries since the last run, so a rebuild never has to
+     * sum more than one interval's worth of entries. The watermark only moves once a run commits.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.journal.snapshots.interval-ms:3600000}",
+               initialDelayString = "${app.inventory.journal.snapshots.initial-delay-ms:300000}")
+    public void takeSnapshots() {
+        LocalDateTime from = snapshotWatermark;
+        if (!snapshotsEnabled || from == null) {
+            return;
+        }
+        LocalDateTime until = LocalDateTime.now().minusSeconds(settleSeconds);
+        if (!until.isAfter(from)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            Integer taken = transaction.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT DISTINCT product_id FROM inventory_journal WHERE created_at > ? AND created_at <= ?",
+                        Long.class, Timestamp.valueOf(from), Timestamp.valueOf(until));
+                List<InventorySnapshot> snapshots = new ArrayList<>();
+                for (Long productId : ids) {
+                    Map<String, SizeInventoryData> inventory = new HashMap<>();
+                    rebuild(productId, until, inventory, new LocalDateTime[1]);
+                    snapshots.add(new InventorySnapshot(productId, until, serialize(inventory)));
+                }
+                snapshotRepository.saveAll(snapshots);
+                return snapshots.size();
+            });
+            snapshotWatermark = until;
+            if (taken != null && taken > 0) {
+                System.out.println("Took inventory snapshots for " + taken + " products in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Inventory snapshot run failed, retrying next run: " + e.getMessage());
+        }
+    }
+
+    // Fills inventory with the levels at the given time and returns how many entries were applied on top of the snapshot
+    private long rebuild(Long productId, LocalDateTime at, Map<String, SizeInventoryData> inventory, LocalDateTime[] snapshotAt) {
+        Optional<InventorySnapshot> snapshot =
+                snapshotRepository.findFirstByProductIdAndCoversUntilLessThanEqualOrderByCoversUntilDesc(productId, at);
+        LocalDateTime from = JOURNAL_START;
+        if (snapshot.isPresent()) {
+            inventory.putAll(parse(snapshot.get().getSizeInventory()));
+            from = snapshot.get().getCoversUntil();
+            snapshotAt[0] = from;
+        }
+
+        long[] applied = new long[1];
+        jdbcTemplate.query(
+                "SELECT size, SUM(quantity_delta), SUM(reserved_delta), SUM(held_delta), COUNT(*) FROM inventory_journal "
+                        + "WHERE product_id = ? AND created_at > ? AND created_at <= ? GROUP BY size",
+                rs -> {
+                    SizeInventoryData data = inventory.computeIfAbsent(rs.getString(1), size -> new SizeInventoryData());
+                    data.setQuantity(data.getQuantity() + rs.getInt(2));
+                    data.setReserved(data.getReserved() + rs.getInt(3));
+                    data.setHeld(data.getHeld() + rs.getInt(4));
+                    applied[0] += rs.getLong(5);
+                },
+                productId, Timestamp.valueOf(from), Timestamp.valueOf(at));
+        return applied[0];
+    }
+
+    private static int[] levels(SizeInventoryData data) {
+        if (data == null) {
+            return new int[3];
+        }
+        return new int[] { data.getQuantity(), data.getReserved(), data.getHeld() };
+    }
+
+    // Missing sizes count as all zero, since the journal cannot tell a zeroed size from an absent one
+    private static boolean sameLevels(Map<String, SizeInventoryData> a, Map<String, SizeInventoryData> b) {
+        Set<String> sizes = new HashSet<>(a.keySet());
+        sizes.addAll(b.keySet());
+        for (String size : sizes) {
+            if (!Arrays.equals(levels(a.get(size)), levels(b.get(size)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<InventoryPointInTimeResponse.SizeLevel> toLevels(Map<String, SizeInventoryData> inventory) {
+        List<InventoryPointInTimeResponse.SizeLevel> result = new ArrayList<>();
+        inventory.forEach((size, data) ->
+                result.add(new InventoryPointInTimeResponse.SizeLevel(size, data.getQuantity(), data.getReserved(), data.getHeld())));
+        // Same ordering as the product's size list: numeric sizes by value, others alphabetically
+        result.sort((a, b) -> {
+            try {
+                return Double.compare(Double.parseDouble(a.getSize()), Double.parseDouble(b.getSize()));
+            } catch (NumberFormatException e) {
+                return a.getSize().compareTo(b.getSize());
+            }
+        });
+        return result;
+    }
+
+    // A product's stored inventory, packed or still in JSON
+    private Map<String, SizeInventoryData> stored(byte[] packed, String json) {
+        return packed != null ? SizeInventoryCodec.decode(packed) : parse(json);
+    }
+
+    private Map<String, SizeInventoryData> parse(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, SizeInventoryData>>() {});
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable inventory snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private String serialize(Map<String, SizeInventoryData> inventory) {
+        try {
+            return objectMapper.writeValueAsString(inventory);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize inventory snapshot: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.industryE.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.industryE.ecommerce.service.ProductSizeInventoryService.SizeInventoryData;
+
+/**
+ * In-memory copy of every product's stored size inventory, for the availability checks and catalog
+ * rendering that vastly outnumber inventory writes. Each product maps to an immutable
+ * {@link Snapshot} of primitive arrays; a committed write builds a new snapshot and swaps it in, so
+ * readers never lock, never allocate and never see a half-applied write. A periodic reload picks
+ * up writes made by other instances and announces itself with {@link Reloaded}, which the listing
+ * availability index rebuilds from. Levels are as stored: stock handed to hot-size shards still
+ * counts as reserved here, and each snapshot also carries what the shards hold, patched after
+ * commit by the shard writes and reset from the table by every rebalancer pass.
+ */
+@Service
+public class InventoryReadModel {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Off means inventory checks read the database; the snapshots are kept either way for the listing index
+    @Value("${app.inventory.read-model.enabled:true}")
+    private boolean enabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ProductSnapshotIndex<Snapshot> snapshots = new ProductSnapshotIndex<>();
+
+    // Products per IN list when refreshing a few of them
+    private static final int REFRESH_BATCH = 500;
+
+    // Numeric shoe sizes in numeric order, then the rest alphabetically, as the catalog lists them
+    private static final Comparator<String> DISPLAY_ORDER = (a, b) -> {
+        try {
+            return Double.compare(Double.parseDouble(a), Double.parseDouble(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    };
+
+    /** Published after every reload, once the snapshots are in place. */
+    public static final class Reloaded {
+    }
+
+    /** One product's sizes and levels at one version; never modified after construction. */
+    public static final class Snapshot {
+        private final String[] sizes;
+        private final int[] quantity;
+        private final int[] reserved;
+        private final int[] held;
+        // Stock in the size's shards, zero for sizes that aren't hot
+        private final int[] sharded;
+        // Indexes into the arrays above in catalog display order
+        private final int[] displayOrder;
+        private final long version;
+
+        private Snapshot(String[] sizes, int[] quantity, int[] reserved, int[] held, int[] sharded, int[] displayOrder,
+                long version) {
+            this.sizes = sizes;
+            this.quantity = quantity;
+            this.reserved = reserved;
+            this.held = held;
+            this.sharded = sharded;
+            this.displayOrder = displayOrder;
+            this.version = version;
+        }
+
+        public int count() { return sizes.length; }
+        public String size(int i) { return sizes[i]; }
+        public int quantity(int i) { return quantity[i]; }
+        public int reserved(int i) { return reserved[i]; }
+        public int held(int i) { return held[i]; }
+        public int sharded(int i) { return sharded[i]; }
+        public int available(int i) { return quantity[i] - reserved[i] - held[i]; }
+        // What buyers can take: stock in a hot size's shards is for sale again
+        public int forSale(int i) { return quantity[i] - reservedForBuyers(i) - held[i]; }
+        public int reservedForBuyers(int i) { return Math.max(0, reserved[i] - sharded[i]); }
+        public int displayIndex(int position) { return displayOrder[position]; }
+        public long version() { return version; }
+
+        public int indexOf(String size) {
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i].equals(size)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Snapshot withSharded(int[] sharded) {
+            return new Snapshot(sizes, quantity, reserved, held, sharded, displayOrder, version);
+        }
+
+        // Shard stock of the sizes this snapshot shares with another, for a new version of the product
+        private Snapshot withShardedOf(Snapshot other) {
+            if (other == null) {
+                return this;
+            }
+            int[] carried = new int[sizes.length];
+            for (int i = 0; i < sizes.length; i++) {
+                int j = other.indexOf(sizes[i]);
+                carried[i] = j >= 0 ? other.sharded[j] : 0;
+            }
+            return withSharded(carried);
+        }
+
+        private Snapshot withShardStock(Map<String, Integer> totals) {
+            int[] updated = null;
+            for (int i = 0; i < sizes.length; i++) {
+                int total = totals.getOrDefault(sizes[i], 0);
+                if (total != sharded[i]) {
+                    if (updated == null) {
+                        updated = sharded.clone();
+                    }
+                    updated[i] = total;
+                }
+            }
+            return updated != null ? withSharded(updated) : this;
+        }
+
+        private Snapshot withSharded(String size, int total) {
+            int i = indexOf(size);
+            if (i < 0 || sharded[i] == total) {
+                return this;
+            }
+            int[] updated = sharded.clone();
+            updated[i] = total;
+            return withSharded(updated);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /** Rebuilds every snapshot from the products table, keeping those swapped in while it was reading. */
+    @Scheduled(fixedDelayString = "${app.inventory.read-model.refresh-interval-ms:60000}",
+               initialDelayString = "${app.inventory.read-model.refresh-interval-ms:60000}")
+    public void reload() {
+        ProductSnapshotIndex<Snapshot>.Reload reload = snapshots.beginReload();
+        Map<Long, Map<String, Integer>> shardStock = readShardStock();
+        SizeInventoryCodec.Levels levels = new SizeInventoryCodec.Levels();
+        jdbcTemplate.query("SELECT id, version, size_inventory_packed, size_inventory FROM products", rs -> {
+            long productId = rs.getLong(1);
+            byte[] packed = rs.getBytes(3);
+            if (packed == null) {
+                packed = SizeInventoryCodec.encode(parse(productId, rs.getString(4)));
+            }
+            SizeInventoryCodec.decode(packed, levels);
+            reload.put(productId, rs.getLong(2), fromLevels(levels, rs.getLong(2), shardStock.get(productId)));
+        });
+        reload.finish();
+        eventPublisher.publishEvent(new Reloaded());
+    }
+
+    /**
+     * Re-reads the given products' rows and swaps in any that changed since their snapshot, for
+     * callers that can't wait for the next full reload to see other instances' writes.
+     */
+    public void refresh(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(productIds);
+        SizeInventoryCodec.Levels levels = new SizeInventoryCodec.Levels();
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(from + REFRESH_BATCH, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            jdbcTemplate.query("SELECT id, version, size_inventory_packed, size_inventory FROM products WHERE id IN ("
+                    + placeholders + ")", rs -> {
+                long productId = rs.getLong(1);
+                long version = rs.getLong(2);
+                Snapshot current = snapshots.get(productId);
+                if (current != null && current.version() >= version) {
+                    return;
+                }
+                byte[] packed = rs.getBytes(3);
+                if (packed == null) {
+                    packed = SizeInventoryCodec.encode(parse(productId, rs.getString(4)));
+                }
+                SizeInventoryCodec.decode(packed, levels);
+                Snapshot snapshot = fromLevels(levels, version, null);
+                snapshots.patch(productId, version, latest -> snapshot.withShardedOf(latest));
+            }, batch.toArray());
+        }
+    }
+
+    /** The product's current snapshot, or null when the model is off or doesn't know the product. */
+    public Snapshot get(Long productId) {
+        return enabled ? snapshots.get(productId) : null;
+    }
+
+    /** Every product's snapshot, whether or not inventory checks are using the model. */
+    public void forEachSnapshot(BiConsumer<Long, Snapshot> action) {
+        snapshots.forEach(action);
+    }
+
+    /**
+     * Swaps in the product's inventory as of {@code version} once the caller's transaction commits,
+     * or right away without one. The snapshot is copied now, so the caller may keep using the map.
+     */
+    public void applyAfterCommit(Long productId, long version, Map<String, SizeInventoryData> inventory) {
+        Snapshot snapshot = fromMap(inventory, version);
+        AfterCommit.run(() -> snapshots.patch(productId, version, current -> snapshot.withShardedOf(current)));
+    }
+
+    public void removeAfterCommit(Long productId) {
+        AfterCommit.run(() -> snapshots.remove(productId));
+    }
+
+    /** Sets what the size's shards hold once the caller's transaction commits. */
+    public void setShardStockAfterCommit(Long productId, String size, int total) {
+        AfterCommit.run(() -> snapshots.patchIfPresent(productId, current -> current.withSharded(size, total)));
+    }
+
+    /** Takes {@code quantity} off what the size's shards hold once the caller's transaction commits. */
+    public void takeShardStockAfterCommit(Long productId, String size, int quantity) {
+        AfterCommit.run(() -> snapshots.patchIfPresent(productId,
+                current -> {
+                    int i = current.indexOf(size);
+                    return i < 0 ? current : current.withSharded(size, Math.max(0, current.sharded(i) - quantity));
+                }));
+    }
+
+    /**
+     * Replaces every product's shard stock with {@code totals} (productId -> size -> units), read
+     * from inventory_shards; sizes missing from it are no longer hot. This is what corrects the
+     * snapshots for reservations taken on other instances.
+     */
+    public void setShardStock(Map<Long, Map<String, Integer>> totals) {
+        snapshots.forEach((productId, snapshot) -> {
+            Map<String, Integer> sizes = totals.getOrDefault(productId, Map.of());
+            if (snapshot.withShardStock(sizes) != snapshot) {
+                snapshots.patchIfPresent(productId, current -> current.withShardStock(sizes));
+            }
+        });
+    }
+
+    private Map<Long, Map<String, Integer>> readShardStock() {
+        Map<Long, Map<String, Integer>> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, size, SUM(available) FROM inventory_shards GROUP BY product_id, size",
+                rs -> {
+                    totals.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getString(2), rs.getInt(3));
+                });
+        return totals;
+    }
+
+    private static Snapshot fromMap(Map<String, SizeInventoryData> inventory, long version) {
+        int count = inventory.size();
+        String[] sizes = new String[count];
+        int[] quantity = new int[count];
+        int[] reserved = new int[count];
+        int[] held = new int[count];
+        int i = 0;
+        for (Map.Entry<String, SizeInventoryData> entry : inventory.entrySet()) {
+            sizes[i] = entry.getKey();
+            quantity[i] = entry.getValue().getQuantity();
+            reserved[i] = entry.getValue().getReserved();
+            held[i] = entry.getValue().getHeld();
+            i++;
+        }
+        return snapshot(sizes, quantity, reserved, held, new int[count], version);
+    }
+
+    private static Snapshot fromLevels(SizeInventoryCodec.Levels levels, long version, Map<String, Integer> shardStock) {
+        int count = levels.count();
+        String[] sizes = new String[count];
+        int[] quantity = new int[count];
+        int[] reserved = new int[count];
+        int[] held = new int[count];
+        int[] sharded = new int[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = levels.size(i);
+            quantity[i] = levels.quantity(i);
+            reserved[i] = levels.reserved(i);
+            held[i] = levels.held(i);
+            sharded[i] = shardStock != null ? shardStock.getOrDefault(sizes[i], 0) : 0;
+        }
+        return snapshot(sizes, quantity, reserved, held, sharded, version);
+    }
+
+    // Sorting happens here, once per write, instead of on every catalog render
+    private static Snapshot snapshot(String[] sizes, int[] quantity, int[] reserved, int[] held, int[] sharded, long version) {
+        Integer[] order = new Integer[sizes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> DISPLAY_ORDER.compare(sizes[a], sizes[b]));
+        int[] displayOrder = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            displayOrder[i] = order[i];
+        }
+        return new Snapshot(sizes, quantity, reserved, held, sharded, displayOrder, version);
+    }
+
+    private Map<String, SizeInventoryData> parse(long productId, String json) {
+        if (json == null || json.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, SizeInventoryData>>() {});
+        } catch (JsonProcessingException e) {
+            System.err.println("Unreadable inventory JSON for product " + productId + ", reading it without sizes: " + e.getMessage());
+            return Map.of();
+        }
+    }
+}
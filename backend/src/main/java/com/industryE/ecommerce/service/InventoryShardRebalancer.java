@@ -0,0 +1,51 @@
+package com.industryE.ecommerce.service;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps hot sizes' shards stocked and level: stock freed on the product (cancellations, restocks)
+ * moves into the shards, and shards that have fallen well behind their siblings are topped up, so
+ * reservations seldom have to look past the shard they picked. Each size is its own transaction.
+ */
+@Service
+public class InventoryShardRebalancer {
+
+    @Autowired
+    private InventoryShardService shardService;
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Value("${app.inventory.shards.rebalance-enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(fixedDelayString = "${app.inventory.shards.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            shardService.refresh();
+        } catch (RuntimeException e) {
+            System.err.println("Could not reload hot sizes: " + e.getMessage());
+            return;
+        }
+        for (Map.Entry<Long, Map<String, Integer>> product : shardService.getHotSizes().entrySet()) {
+            for (String size : product.getValue().keySet()) {
+                try {
+                    optimisticRetryService.run("inventory.shards", () -> sizeInventoryService.rebalanceShards(product.getKey(), size));
+                } catch (RuntimeException e) {
+                    System.err.println("Shard rebalance failed for product " + product.getKey() + " size " + size + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.industryE.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.industryE.ecommerce.dto.InventoryShardsResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Sharded stock counters for hot sizes (flash sales). A hot size's sellable stock is split across
+ * several inventory_shards rows and a reservation takes from one row picked at random with a
+ * guarded UPDATE, so concurrent checkouts lock different rows instead of all queueing on the
+ * product. The product's inventory counts the stock handed to the shards as reserved, which keeps
+ * cancelling, confirming and the journal working on the product as before; moving stock between
+ * the product and the shards is up to {@link ProductSizeInventoryService}. Every write here also
+ * patches the shard stock kept in the {@link InventoryReadModel} after commit, and {@link #refresh}
+ * resets it from the table, so buyer-facing checks never sum the shards. Plain JDBC throughout,
+ * since this is the hot path.
+ */
+@Service
+public class InventoryShardService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InventoryReadModel readModel;
+
+    @Value("${app.inventory.shards.default-count:8}")
+    private int defaultShards;
+
+    @Value("${app.inventory.shards.max-count:64}")
+    private int maxShards;
+
+    // productId -> size -> shard count, reloaded by the rebalancer so changes made by other instances show up
+    private volatile Map<Long, Map<String, Integer>> hotSizes = Map.of();
+
+    private Counter siblingFallbacks;
+    private Counter spreadReservations;
+
+    @PostConstruct
+    public void registerMetrics() {
+        siblingFallbacks = Counter.builder("inventory.shards.fallbacks")
+                .description("Hot-size reservations that found their random shard short and used a sibling")
+                .register(meterRegistry);
+        spreadReservations = Counter.builder("inventory.shards.spread")
+                .description("Hot-size reservations no single shard could cover, taken across all shards under lock")
+                .register(meterRegistry);
+    }
+
+    /** Reloads the hot sizes and the read model's shard stock, picking up other instances' writes. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        Map<Long, Map<String, Integer>> loaded = new HashMap<>();
+        Map<Long, Map<String, Integer>> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, size, COUNT(*), SUM(available) FROM inventory_shards GROUP BY product_id, size",
+                rs -> {
+                    loaded.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getString(2), rs.getInt(3));
+                    stock.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getString(2), rs.getInt(4));
+                });
+        hotSizes = loaded;
+        readModel.setShardStock(stock);
+    }
+
+    public boolean isHot(Long productId, String size) {
+        Map<String, Integer> sizes = hotSizes.get(productId);
+        return sizes != null && sizes.containsKey(size);
+    }
+
+    public Map<Long, Map<String, Integer>> getHotSizes() {
+        return hotSizes;
+    }
+
+    /** Shard levels of one size in shard order; not locked, so only a moment's view. */
+    public List<Integer> getLevels(Long productId, String size) {
+        return jdbcTemplate.queryForList(
+                "SELECT available FROM inventory_shards WHERE product_id = ? AND size = ? ORDER BY shard",
+                Integer.class, productId, size);
+    }
+
+    public List<InventoryShardsResponse> getAllLevels() {
+        List<InventoryShardsResponse> result = new ArrayList<>();
+        hotSizes.forEach((productId, sizes) -> sizes.keySet().forEach(size ->
+                result.add(new InventoryShardsResponse(productId, size, getLevels(productId, size)))));
+        return result;
+    }
+
+    public int getAvailable(Long productId, String size) {
+        Integer available = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(available), 0) FROM inventory_shards WHERE product_id = ? AND size = ?",
+                Integer.class, productId, size);
+        return available != null ? available : 0;
+    }
+
+    /**
+     * Takes the quantity from the size's shards: first a random shard, then its siblings in turn, and
+     * only if none holds enough on its own, from all of them at once under lock. Returns false when
+     * the shards do not hold enough between them. Near sell-out the sibling walk can meet other
+     * buyers walking the other way; the database then fails one of them with a deadlock error.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(Long productId, String size, int quantity) {
+        int shards = shardCount(productId, size);
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = (start + i) % shards;
+            int updated = jdbcTemplate.update(
+                    "UPDATE inventory_shards SET available = available - ? "
+                            + "WHERE product_id = ? AND size = ? AND shard = ? AND available >= ?",
+                    quantity, productId, size, shard, quantity);
+            if (updated == 1) {
+                if (i > 0) {
+                    siblingFallbacks.increment();
+                }
+                readModel.takeShardStockAfterCommit(productId, size, quantity);
+                return true;
+            }
+        }
+
+        int[] levels = lockLevels(productId, size);
+        int total = 0;
+        for (int level : levels) {
+            total += level;
+        }
+        if (total < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        List<Object[]> updates = new ArrayList<>();
+        for (int shard = 0; shard < levels.length && remaining > 0; shard++) {
+            int take = Math.min(levels[shard], remaining);
+            if (take > 0) {
+                updates.add(new Object[] { take, productId, size, shard });
+                remaining -= take;
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE inventory_shards SET available = available - ? WHERE product_id = ? AND size = ? AND shard = ?",
+                updates);
+        spreadReservations.increment();
+        readModel.setShardStockAfterCommit(productId, size, total - quantity);
+        return true;
+    }
+
+    /** Creates the shard rows of a size, all empty; the caller moves stock in with {@link #rebalance}. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void create(Long productId, String size, Integer requestedShards) {
+        int shards = requestedShards != null ? requestedShards : defaultShards;
+        if (shards < 2 || shards > maxShards) {
+            throw new RuntimeException("Shard count must be between 2 and " + maxShards);
+        }
+        if (!getLevels(productId, size).isEmpty()) {
+            throw new RuntimeException("Size " + size + " of product " + productId + " is already sharded");
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            rows.add(new Object[] { productId, size, shard });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_shards (product_id, size, shard, available) VALUES (?, ?, ?, 0)", rows);
+        AfterCommit.run(() -> markHot(productId, size, shards));
+    }
+
+    /**
+     * Adds {@code added} units to the size's shards and evens them out. Without new stock it does
+     * nothing unless some shard has fallen below half the average, so a steady sale is left alone.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rebalance(Long productId, String size, int added) {
+        if (added == 0 && !unbalanced(getLevels(productId, size))) {
+            return;
+        }
+        int[] levels = lockLevels(productId, size);
+        int total = added;
+        for (int level : levels) {
+            total += level;
+        }
+        List<Object[]> updates = new ArrayList<>();
+        for (int shard = 0; shard < levels.length; shard++) {
+            int target = total / levels.length + (shard < total % levels.length ? 1 : 0);
+            if (target != levels[shard]) {
+                updates.add(new Object[] { target, productId, size, shard });
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE inventory_shards SET available = ? WHERE product_id = ? AND size = ? AND shard = ?", updates);
+        }
+        readModel.setShardStockAfterCommit(productId, size, total);
+    }
+
+    /** Empties the size's shards and returns what they held; with {@code remove} the size stops being hot. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int drain(Long productId, String size, boolean remove) {
+        int total = 0;
+        for (int level : lockLevels(productId, size)) {
+            total += level;
+        }
+        if (remove) {
+            jdbcTemplate.update("DELETE FROM inventory_shards WHERE product_id = ? AND size = ?", productId, size);
+            AfterCommit.run(() -> unmarkHot(productId, size));
+        } else {
+            jdbcTemplate.update("UPDATE inventory_shards SET available = 0 WHERE product_id = ? AND size = ?", productId, size);
+        }
+        readModel.setShardStockAfterCommit(productId, size, 0);
+        return total;
+    }
+
+    // Locks every shard row of the size in shard order, the one order all lockers use
+    private int[] lockLevels(Long productId, String size) {
+        List<Integer> levels = jdbcTemplate.queryForList(
+                "SELECT available FROM inventory_shards WHERE product_id = ? AND size = ? ORDER BY shard FOR UPDATE",
+                Integer.class, productId, size);
+        if (levels.isEmpty()) {
+            throw new RuntimeException("Size " + size + " of product " + productId + " is not sharded");
+        }
+        return levels.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int shardCount(Long productId, String size) {
+        Map<String, Integer> sizes = hotSizes.get(productId);
+        Integer shards = sizes != null ? sizes.get(size) : null;
+        if (shards == null) {
+            throw new RuntimeException("Size " + size + " of product " + productId + " is not sharded");
+        }
+        return shards;
+    }
+
+    private static boolean unbalanced(List<Integer> levels) {
+        int total = 0;
+        int min = Integer.MAX_VALUE;
+        for (int level : levels) {
+            total += level;
+            min = Math.min(min, level);
+        }
+        return !levels.isEmpty() && total > 0 && min * 2L * levels.size() < total;
+    }
+
+    private synchronized void markHot(Long productId, String size, int shards) {
+        Map<Long, Map<String, Integer>> updated = new HashMap<>(hotSizes);
+        Map<String, Integer> sizes = new HashMap<>(updated.getOrDefault(productId, Map.of()));
+        sizes.put(size, shards);
+        updated.put(productId, sizes);
+        hotSizes = updated;
+    }
+
+    private synchronized void unmarkHot(Long productId, String size) {
+        Map<Long, Map<String, Integer>> updated = new HashMap<>(hotSizes);
+        Map<String, Integer> sizes = new HashMap<>(updated.getOrDefault(productId, Map.of()));
+        sizes.remove(size);
+        if (sizes.isEmpty()) {
+            updated.remove(productId);
+        } else {
+            updated.put(productId, sizes);
+        }
+        hotSizes = updated;
+    }
+}
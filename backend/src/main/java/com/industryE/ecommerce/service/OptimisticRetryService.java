@@ -0,0 +1,119 @@
+package com.industryE.ecommerce.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.OptimisticLockException;
+
+/**
+ * Runs a write that touches products in its own transaction and, when the product's version check
+ * fails because another request changed it first, runs the whole transaction again on fresh data.
+ * Attempts are bounded and spaced by a random backoff whose ceiling doubles each time, so writers
+ * that collided spread out instead of colliding again. A rollback clears the request's
+ * persistence context, so the next attempt re-reads the product instead of reusing the stale copy.
+ * Collisions are counted in product.write.conflicts (by operation and outcome) against
+ * product.write.operations, so the collision rate under load can be read off directly.
+ */
+@Service
+public class OptimisticRetryService {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.products.write-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.products.write-retry.backoff-ms:20}")
+    private long backoffMillis;
+
+    @Value("${app.products.write-retry.max-backoff-ms:500}")
+    private long maxBackoffMillis;
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        // Inside someone else's transaction a retry can't undo their work; whoever owns it retries
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transaction.execute(status -> work.get());
+                Counter.builder("product.write.operations")
+                        .description("Product writes run through the optimistic retry policy")
+                        .tag("operation", operation)
+                        .register(meterRegistry)
+                        .increment();
+                return result;
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                boolean exhausted = attempt >= maxAttempts;
+                Counter.builder("product.write.conflicts")
+                        .description("Product writes that lost a version check")
+                        .tag("operation", operation)
+                        .tag("outcome", exhausted ? "exhausted" : "retried")
+                        .register(meterRegistry)
+                        .increment();
+                if (exhausted) {
+                    System.err.println(operation + " gave up after " + attempt + " conflicting attempts");
+                    throw new RuntimeException("The product was changed by another request, please try again", e);
+                }
+                pause(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable work) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Services sometimes wrap failures in their own RuntimeException, so look through the causes
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private void pause(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying a product write", e);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.industryE.ecommerce.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.industryE.ecommerce.Enum.OrderTransitionOutcome;
+import com.industryE.ecommerce.Enum.PaymentStatus;
+import com.industryE.ecommerce.Enum.Status;
+import com.industryE.ecommerce.dto.BulkOrderStatusResponse;
+import com.industryE.ecommerce.entity.Order;
+import com.industryE.ecommerce.entity.OrderItem;
+import com.industryE.ecommerce.repository.OrderRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies order status changes, checked against {@link OrderStateMachine}, and keeps reserved stock
+ * in step: placing an order reserves its items, cancelling releases them and delivering turns them
+ * into sold stock. Bulk changes and the sweep that cancels unpaid orders left PENDING past
+ * {@code app.orders.pending-timeout-minutes} work a chunk of orders at a time with set-based
+ * statements and one inventory write per product.
+ */
+@Service
+public class OrderReservationService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.orders.expiry.enabled:true}")
+    private boolean expiryEnabled;
+
+    @Value("${app.orders.pending-timeout-minutes:1440}")
+    private long pendingTimeoutMinutes;
+
+    @Value("${app.orders.expiry.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.orders.bulk.max-ids:5000}")
+    private int bulkMaxIds;
+
+    @Value("${app.orders.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    private Counter ordersExpired;
+
+    @PostConstruct
+    public void registerMetrics() {
+        ordersExpired = Counter.builder("orders.expired")
+                .description("Unpaid pending orders cancelled by the expiry sweep")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets the order's status if the state machine allows it and settles its reservation: CANCELLED
+     * releases the reserved stock, DELIVERED or COMPLETED takes it out of stock. Only orders that
+     * still hold a reservation (PENDING or PROCESSING) are settled, so stock is never counted twice.
+     * The caller loads the order with {@link OrderRepository#findByIdForUpdate}.
+     */
+    public void changeStatus(Order order, Status newStatus) {
+        OrderStateMachine.checkTransition(order, newStatus);
+        if (order.getStatus() == newStatus) {
+            return;
+        }
+        if (holdsReservation(order.getStatus()) && !holdsReservation(newStatus)) {
+            Map<Long, Map<String, Integer>> quantities = new HashMap<>();
+            addItems(quantities, order);
+            if (!quantities.isEmpty()) {
+                if (newStatus == Status.CANCELLED) {
+                    sizeInventoryService.releaseReservations(quantities);
+                } else {
+                    sizeInventoryService.confirmSales(quantities);
+                }
+            }
+        }
+        recordStatusChanged(order.getId(), order.getStatus(), newStatus, null);
+        order.setStatus(newStatus);
+    }
+
+    /**
+     * Moves many orders to one status. Each chunk of ids runs in its own transaction: the rows are
+     * locked and classified against the state machine, the eligible ones change in a single guarded
+     * UPDATE, and their stock is settled in one batch per product. Every id gets an outcome.
+     */
+    public BulkOrderStatusResponse bulkChangeStatus(List<Long> orderIds, Status newStatus) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        if (ids.size() > bulkMaxIds) {
+            throw new RuntimeException("Too many orders: " + ids.size() + " (max " + bulkMaxIds + ")");
+        }
+
+        Map<Long, BulkOrderStatusResponse.OrderOutcome> outcomes = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += bulkChunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(start + bulkChunkSize, ids.size()));
+            try {
+                Map<Long, BulkOrderStatusResponse.OrderOutcome> chunkOutcomes = new HashMap<>();
+                optimisticRetryService.run("order.bulk-status", () -> transitionChunk(chunk, newStatus, chunkOutcomes));
+                outcomes.putAll(chunkOutcomes);
+            } catch (RuntimeException e) {
+                System.err.println("Bulk status change to " + newStatus + " failed for a chunk of "
+                        + chunk.size() + " orders: " + e.getMessage());
+                for (Long id : chunk) {
+                    outcomes.put(id, new BulkOrderStatusResponse.OrderOutcome(id, OrderTransitionOutcome.FAILED, null));
+                }
+            }
+        }
+
+        List<BulkOrderStatusResponse.OrderOutcome> results = new ArrayList<>();
+        int updated = 0;
+        for (Long id : ids) {
+            BulkOrderStatusResponse.OrderOutcome outcome = outcomes.get(id);
+            if (outcome.getOutcome() == OrderTransitionOutcome.UPDATED) {
+                updated++;
+            }
+            results.add(outcome);
+        }
+        return new BulkOrderStatusResponse(newStatus, ids.size(), updated, results);
+    }
+
+    private void transitionChunk(List<Long> ids, Status newStatus, Map<Long, BulkOrderStatusResponse.OrderOutcome> outcomes) {
+        boolean paymentRequired = OrderStateMachine.requiresPayment(newStatus);
+        List<Long> eligible = new ArrayList<>();
+        List<Long> toSettle = new ArrayList<>();
+
+        for (Object[] row : orderRepository.findStatusesForUpdate(ids)) {
+            Long id = (Long) row[0];
+            Status current = (Status) row[1];
+            OrderTransitionOutcome outcome;
+            if (current == newStatus) {
+                outcome = OrderTransitionOutcome.UNCHANGED;
+            } else if (!OrderStateMachine.canTransition(current, newStatus)) {
+                outcome = OrderTransitionOutcome.INVALID_TRANSITION;
+            } else if (paymentRequired && row[2] != PaymentStatus.COMPLETED) {
+                outcome = OrderTransitionOutcome.PAYMENT_REQUIRED;
+            } else {
+                outcome = OrderTransitionOutcome.UPDATED;
+                eligible.add(id);
+                if (holdsReservation(current) && !holdsReservation(newStatus)) {
+                    toSettle.add(id);
+                }
+            }
+            outcomes.put(id, new BulkOrderStatusResponse.OrderOutcome(id, outcome, current));
+            if (outcome == OrderTransitionOutcome.UPDATED) {
+                recordStatusChanged(id, current, newStatus, null);
+            }
+        }
+        for (Long id : ids) {
+            outcomes.putIfAbsent(id, new BulkOrderStatusResponse.OrderOutcome(id, OrderTransitionOutcome.NOT_FOUND, null));
+        }
+        if (eligible.isEmpty()) {
+            return;
+        }
+
+        int changed = orderRepository.transitionStatus(eligible, OrderStateMachine.sourcesOf(newStatus), newStatus,
+                paymentRequired, PaymentStatus.COMPLETED);
+        if (changed != eligible.size()) {
+            // Rows are locked, so this means the guards and the state machine disagree
+            throw new RuntimeException("Expected to update " + eligible.size() + " orders but updated " + changed);
+        }
+
+        if (!toSettle.isEmpty()) {
+            Map<Long, Map<String, Integer>> quantities = new HashMap<>();
+            for (Object[] row : orderRepository.sumItemQuantities(toSettle)) {
+                if (row[0] == null || row[1] == null) {
+                    continue;
+                }
+                quantities.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                        .put((String) row[1], ((Number) row[2]).intValue());
+            }
+            if (!quantities.isEmpty()) {
+                if (newStatus == Status.CANCELLED) {
+                    sizeInventoryService.releaseReservations(quantities);
+                } else {
+                    sizeInventoryService.confirmSales(quantities);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.expiry.interval-ms:300000}",
+               initialDelayString = "${app.orders.expiry.initial-delay-ms:60000}")
+    public void expireStalePendingOrders() {
+        if (!expiryEnabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(pendingTimeoutMinutes);
+        int total = 0;
+        long lastId = 0;
+
+        while (true) {
+            List<Long> ids = orderRepository.findUnpaidIdsPlacedBefore(
+                    Status.PENDING, cutoff, lastId, PaymentStatus.COMPLETED, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+
+            Integer expired;
+            try {
+                expired = optimisticRetryService.execute("order.expire", () -> expireChunk(ids));
+            } catch (RuntimeException e) {
+                System.err.println("Pending order sweep chunk failed, stopping this run: " + e.getMessage());
+                break;
+            }
+            total += expired;
+            ordersExpired.increment(expired);
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            System.out.println("Expired " + total + " unpaid pending orders in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    // Locks the chunk's orders that are still PENDING, releases all their items in one batch and cancels them
+    private int expireChunk(List<Long> ids) {
+        List<Order> orders = orderRepository.findByIdInAndStatusForUpdate(ids, Status.PENDING);
+        Map<Long, Map<String, Integer>> quantities = new HashMap<>();
+        for (Order order : orders) {
+            addItems(quantities, order);
+            recordStatusChanged(order.getId(), order.getStatus(), Status.CANCELLED, "expired");
+            order.setStatus(Status.CANCELLED);
+        }
+        if (!quantities.isEmpty()) {
+            sizeInventoryService.releaseReservations(quantities);
+        }
+        orderRepository.saveAll(orders);
+        return orders.size();
+    }
+
+    private void recordStatusChanged(Long orderId, Status from, Status to, String reason) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("from", from);
+        payload.put("to", to);
+        if (reason != null) {
+            payload.put("reason", reason);
+        }
+        outboxService.record(OutboxService.ORDER, orderId, "OrderStatusChanged", payload);
+    }
+
+    private boolean holdsReservation(Status status) {
+        return status == Status.PENDING || status == Status.PROCESSING;
+    }
+
+    private void addItems(Map<Long, Map<String, Integer>> quantities, Order order) {
+        if (order.getOrderItems() == null) {
+            return;
+        }
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getProductId() == null || item.getSize() == null) {
+                continue;
+            }
+            quantities.computeIfAbsent(item.getProductId(), id -> new HashMap<>())
+                    .merge(item.getSize(), item.getQuantity(), Integer::sum);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.industryE.ecommerce.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,12 +13,16 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.industryE.ecommerce.Enum.Status;
-import com.industryE.ecommerce.Enum.PaymentStatus;
+import com.industryE.ecommerce.dto.CheckoutRequest;
 import com.industryE.ecommerce.dto.CreateOrderRequest;
 import com.industryE.ecommerce.dto.OrderResponse;
+import com.industryE.ecommerce.entity.CartItem;
 import com.industryE.ecommerce.entity.Order;
 import com.industryE.ecommerce.entity.OrderItem;
+import com.industryE.ecommerce.entity.Product;
 import com.industryE.ecommerce.entity.User;
+import com.industryE.ecommerce.repository.CartItemRepository;
+import com.industryE.ecommerce.repository.CartRepository;
 import com.industryE.ecommerce.repository.OrderRepository;
 
 @Service
@@ -27,6 +34,24 @@ public class OrderService {
     @Autowired
     private ProductSizeInventoryService productSizeInventoryService;
 
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private InventoryHoldService inventoryHoldService;
+
+    @Autowired
+    private OrderReservationService orderReservationService;
+
+    @Autowired
+    private OutboxService outboxService;
+
     @Transactional
     public OrderResponse createOrder(CreateOrderRequest request, User user) {
         try {
@@ -64,6 +89,14 @@ public class OrderService {
             // Create order items and establish bidirectional relationship
             List<OrderItem> orderItems = new ArrayList<>();
             if (request.getItems() != null && !request.getItems().isEmpty()) {
+                if (inventoryHoldService.isEnabled()) {
+                    // The buyer's own cart holds give way to the reservation below
+                    List<InventoryHoldService.HoldLine> heldLines = new ArrayList<>();
+                    for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
+                        heldLines.add(new InventoryHoldService.HoldLine(itemRequest.getProductId(), itemRequest.getSize(), 0));
+                    }
+                    inventoryHoldService.releaseHolds(user.getId(), heldLines);
+                }
                 for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
                     // Check size inventory before creating order item
                     boolean available = productSizeInventoryService.checkAvailability(
@@ -96,6 +129,7 @@ public class OrderService {
 
             // Save order with items (cascade will handle order items)
             Order savedOrder = orderRepository.save(order);
+            recordOrderPlaced(savedOrder);
 
             return convertToResponse(savedOrder);
         } catch (Exception e) {
@@ -106,6 +140,79 @@ public class OrderService {
         }
     }
 
+    /**
+     * Places an order for the user's selected cart lines. Items, prices and the total are taken from the
+     * cart and current product prices, stock for all lines is reserved in one batch, and the ordered lines
+     * are removed from the cart, all in a single transaction.
+     */
+    @Transactional
+    public OrderResponse checkout(CheckoutRequest request, User user) {
+        // The cart rows are the source of truth here, so push out any buffered cart changes first
+        cartStore.flushAndEvict(user.getId());
+
+        List<CartItem> lines = cartItemRepository.findSelectedByUserId(user.getId());
+        if (lines.isEmpty()) {
+            throw new RuntimeException("No cart items selected for checkout");
+        }
+
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderNumber(generateOrderNumber());
+        order.setStatus(Status.PENDING);
+        order.setPaymentMethod(request.getPaymentMethod());
+
+        if (request.getShippingInfo() != null) {
+            order.setShippingFirstName(request.getShippingInfo().getFirstName());
+            order.setShippingLastName(request.getShippingInfo().getLastName());
+            order.setShippingAddress(request.getShippingInfo().getAddress());
+            order.setShippingCity(request.getShippingInfo().getCity());
+            order.setShippingProvince(request.getShippingInfo().getProvince());
+            order.setShippingPostalCode(request.getShippingInfo().getPostalCode());
+            order.setShippingPhone(request.getShippingInfo().getPhone());
+        }
+
+        Map<Product, Map<String, Integer>> reservations = new LinkedHashMap<>();
+        List<InventoryHoldService.HoldLine> heldLines = new ArrayList<>();
+        List<OrderItem> orderItems = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (CartItem line : lines) {
+            Product product = line.getProduct();
+            heldLines.add(new InventoryHoldService.HoldLine(product.getId(), line.getSize(), 0));
+            reservations.computeIfAbsent(product, p -> new LinkedHashMap<>())
+                    .merge(line.getSize(), line.getQuantity(), Integer::sum);
+
+            // Charge the current catalog price, not the price captured when the line was added
+            BigDecimal unitPrice = BigDecimal.valueOf(product.getPrice());
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProductId(product.getId());
+            orderItem.setProductName(product.getName());
+            orderItem.setProductImage(product.getImage() != null ? product.getImage() : "");
+            orderItem.setSize(line.getSize());
+            orderItem.setUnitPrice(unitPrice);
+            orderItem.setQuantity(line.getQuantity());
+            orderItem.setTotalPrice(unitPrice.multiply(BigDecimal.valueOf(line.getQuantity())));
+            orderItems.add(orderItem);
+            totalAmount = totalAmount.add(orderItem.getTotalPrice());
+        }
+        order.setOrderItems(orderItems);
+        order.setTotalAmount(totalAmount);
+
+        if (inventoryHoldService.isEnabled()) {
+            // Cart holds on the ordered lines turn into the reservation; same product rows, same transaction
+            inventoryHoldService.releaseHolds(user.getId(), heldLines);
+        }
+        productSizeInventoryService.reserveInventory(reservations);
+        Order savedOrder = orderRepository.save(order);
+        recordOrderPlaced(savedOrder);
+
+        // Only the ordered lines leave the cart; unselected lines stay for later
+        cartItemRepository.deleteAllInBatch(lines);
+        cartRepository.bumpVersion(lines.get(0).getCart().getId(), LocalDateTime.now());
+
+        return convertToResponse(savedOrder);
+    }
+
     @Transactional(readOnly = true)
     public List<OrderResponse> getUserOrders(Long userId) {
         // Critical fix: Only return orders that belong to the specific user
@@ -133,25 +240,33 @@ public class OrderService {
             throw new RuntimeException("Only delivered orders can be marked as received");
         }
 
-        if (order.getPaymentStatus() != PaymentStatus.COMPLETED) {
-            throw new RuntimeException("Cannot mark order as received — Payment is not completed");
-        }
-        
-        // Don't allow marking as received if already completed or cancelled
-        if (order.getStatus().equals(Status.COMPLETED)) {
-            throw new RuntimeException("Order is already marked as completed");
-        }
-        if (order.getStatus().equals(Status.CANCELLED)) {
-            throw new RuntimeException("Cannot mark cancelled orders as received");
-        }
-        
-        // Mark as COMPLETED
-        order.setStatus(Status.COMPLETED);
+        // Mark as COMPLETED; payment and transition rules are checked by the state machine
+        orderReservationService.changeStatus(order, Status.COMPLETED);
         Order updatedOrder = orderRepository.save(order);
         
         return convertToResponse(updatedOrder);
     }
 
+    // Downstream work (rollups, notifications) runs off this event instead of lengthening checkout; backorder allocation records it too
+    void recordOrderPlaced(Order order) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("productId", item.getProductId());
+                line.put("size", item.getSize());
+                line.put("quantity", item.getQuantity());
+                items.add(line);
+            }
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("userId", order.getUser().getId());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("items", items);
+        outboxService.record(OutboxService.ORDER, order.getId(), "OrderPlaced", payload);
+    }
+
     private String generateOrderNumber() {
         return "ORD-" + System.currentTimeMillis();
     }
@@ -190,16 +305,10 @@ public class OrderService {
 
     @Transactional
     public OrderResponse updateOrderStatus(Long orderId, Status newStatus) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
-        // BLOCK IF PAYMENT NOT PAID
-        if (newStatus == Status.DELIVERED &&
-            order.getPaymentStatus() != PaymentStatus.COMPLETED) {
-            throw new RuntimeException("Cannot mark as Delivered — Payment is not completed");
-        }
-
-        order.setStatus(newStatus);
+        orderReservationService.changeStatus(order, newStatus);
         orderRepository.save(order);
         return convertToResponse(order);
     }
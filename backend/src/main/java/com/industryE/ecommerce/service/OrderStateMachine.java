@@ -0,0 +1,79 @@
+package com.industryE.ecommerce.service;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.industryE.ecommerce.Enum.PaymentStatus;
+import com.industryE.ecommerce.Enum.Status;
+import com.industryE.ecommerce.entity.Order;
+
+/**
+ * The allowed order and payment status transitions, in one table each. Every status change
+ * (single or bulk) is checked here; the bulk path turns the same table into SQL guard predicates.
+ * Setting a status to its current value is always allowed and changes nothing.
+ */
+public final class OrderStateMachine {
+
+    private static final Map<Status, Set<Status>> STATUS_TRANSITIONS = new EnumMap<>(Status.class);
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PAYMENT_TRANSITIONS = new EnumMap<>(PaymentStatus.class);
+
+    // Statuses that may only be reached once the payment has been completed
+    private static final Set<Status> REQUIRES_PAYMENT = EnumSet.of(Status.DELIVERED, Status.COMPLETED);
+
+    static {
+        STATUS_TRANSITIONS.put(Status.PENDING, EnumSet.of(Status.PROCESSING, Status.DELIVERED, Status.CANCELLED));
+        STATUS_TRANSITIONS.put(Status.PROCESSING, EnumSet.of(Status.DELIVERED, Status.CANCELLED));
+        STATUS_TRANSITIONS.put(Status.DELIVERED, EnumSet.of(Status.COMPLETED));
+        STATUS_TRANSITIONS.put(Status.COMPLETED, EnumSet.noneOf(Status.class));
+        STATUS_TRANSITIONS.put(Status.CANCELLED, EnumSet.noneOf(Status.class));
+
+        PAYMENT_TRANSITIONS.put(PaymentStatus.PENDING, EnumSet.of(PaymentStatus.COMPLETED, PaymentStatus.FAILED, PaymentStatus.CANCELLED));
+        PAYMENT_TRANSITIONS.put(PaymentStatus.FAILED, EnumSet.of(PaymentStatus.PENDING, PaymentStatus.COMPLETED, PaymentStatus.CANCELLED));
+        PAYMENT_TRANSITIONS.put(PaymentStatus.COMPLETED, EnumSet.noneOf(PaymentStatus.class));
+        PAYMENT_TRANSITIONS.put(PaymentStatus.CANCELLED, EnumSet.noneOf(PaymentStatus.class));
+    }
+
+    private OrderStateMachine() {}
+
+    public static boolean canTransition(Status from, Status to) {
+        return from == to || STATUS_TRANSITIONS.get(from).contains(to);
+    }
+
+    public static boolean canTransition(PaymentStatus from, PaymentStatus to) {
+        // Orders created before payment tracking have no payment status yet
+        PaymentStatus current = from != null ? from : PaymentStatus.PENDING;
+        return current == to || PAYMENT_TRANSITIONS.get(current).contains(to);
+    }
+
+    public static boolean requiresPayment(Status to) {
+        return REQUIRES_PAYMENT.contains(to);
+    }
+
+    /** Statuses an order may move to {@code to} from, excluding {@code to} itself. */
+    public static Set<Status> sourcesOf(Status to) {
+        Set<Status> sources = EnumSet.noneOf(Status.class);
+        STATUS_TRANSITIONS.forEach((from, targets) -> {
+            if (targets.contains(to)) {
+                sources.add(from);
+            }
+        });
+        return sources;
+    }
+
+    public static void checkTransition(Order order, Status to) {
+        if (!canTransition(order.getStatus(), to)) {
+            throw new RuntimeException("Cannot change order status from " + order.getStatus() + " to " + to);
+        }
+        if (order.getStatus() != to && requiresPayment(to) && order.getPaymentStatus() != PaymentStatus.COMPLETED) {
+            throw new RuntimeException("Cannot mark as " + to + ". Payment status is not yet COMPLETED.");
+        }
+    }
+
+    public static void checkTransition(Order order, PaymentStatus to) {
+        if (!canTransition(order.getPaymentStatus(), to)) {
+            throw new RuntimeException("Cannot change payment status from " + order.getPaymentStatus() + " to " + to);
+        }
+    }
+}
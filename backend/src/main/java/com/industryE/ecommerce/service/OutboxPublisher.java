@@ -0,0 +1,236 @@
+package com.industryE.ecommerce.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.industryE.ecommerce.entity.OutboxEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Polls the outbox and hands events to the {@link OutboxSubscriber} beans in id order. Ids are
+ * assigned by the database at insert, and writes to one aggregate are serialized on its row, so
+ * id order is commit order for each aggregate's events. Each poll locks a batch of unpublished
+ * events, hands each subscriber its share of them in one call, and marks the delivered ones
+ * published in one batch update, all in one transaction, so a crash mid-batch re-delivers rather
+ * than loses events. If a subscriber throws, the batch is redelivered an event at a time; when
+ * delivery of an event fails, later events for the same aggregate in the batch are held back too,
+ * keeping per-aggregate order. Lag is exposed as outbox.lag.seconds (age of the oldest pending
+ * event) alongside outbox.pending and the outbox.delivery.delay timer.
+ */
+@Service
+public class OutboxPublisher {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Optional: with no subscribers, events are simply marked published
+    @Autowired(required = false)
+    private List<OutboxSubscriber> subscribers = new ArrayList<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    // Events younger than this are left for the next poll, giving transactions that took a lower id time to commit
+    @Value("${app.outbox.settle-ms:500}")
+    private long settleMillis;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retention-hours:72}")
+    private int retentionHours;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private Counter published;
+    private Counter failed;
+    private Timer deliveryDelay;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Unpublished outbox events")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .register(meterRegistry);
+        published = Counter.builder("outbox.events.published")
+                .description("Outbox events delivered to all subscribers")
+                .register(meterRegistry);
+        failed = Counter.builder("outbox.events.failed")
+                .description("Outbox event deliveries that threw and will be retried")
+                .register(meterRegistry);
+        deliveryDelay = Timer.builder("outbox.delivery.delay")
+                .description("Time from recording an outbox event to delivering it")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            // Keep draining while whole batches are delivered; a failure waits for the next poll
+            Integer delivered;
+            do {
+                delivered = transaction.execute(status -> publishBatch());
+            } while (delivered != null && delivered == batchSize);
+            updateLag();
+        } catch (RuntimeException e) {
+            System.err.println("Outbox poll failed: " + e.getMessage());
+        }
+    }
+
+    // Returns how many events were delivered
+    private int publishBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        // Picks the batch without locking, ordered by the whole (published_at, id) index so the scan stops at
+        // the batch size, then locks just those rows; a locking read with LIMIT can lock every pending event.
+        // Events another poller published in between drop out of the second read.
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_events WHERE published_at IS NULL AND attempts < ? AND created_at < ? "
+                        + "ORDER BY published_at, id LIMIT ?",
+                Long.class, maxAttempts, Timestamp.valueOf(now.minus(Duration.ofMillis(settleMillis))), batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<OutboxEvent> events = jdbcTemplate.query(
+                "SELECT id, aggregate_type, aggregate_id, event_type, payload, created_at, attempts FROM outbox_events "
+                        + "WHERE id IN (" + placeholders + ") AND published_at IS NULL ORDER BY id FOR UPDATE",
+                (rs, rowNum) -> {
+                    OutboxEvent event = new OutboxEvent(rs.getString(2), rs.getLong(3), rs.getString(4), rs.getString(5));
+                    event.setId(rs.getLong(1));
+                    event.setCreatedAt(rs.getTimestamp(6).toLocalDateTime());
+                    event.setAttempts(rs.getInt(7));
+                    return event;
+                },
+                ids.toArray());
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> delivered = new ArrayList<>();
+        List<Object[]> failures = new ArrayList<>();
+        Set<String> blockedAggregates = new HashSet<>();
+        Timestamp publishedAt = Timestamp.valueOf(now);
+        boolean batchDelivered = deliverAll(events);
+
+        for (OutboxEvent event : events) {
+            String aggregate = event.getAggregateType() + ":" + event.getAggregateId();
+            if (blockedAggregates.contains(aggregate)) {
+                continue;
+            }
+            try {
+                if (!batchDelivered) {
+                    for (OutboxSubscriber subscriber : subscribers) {
+                        if (subscriber.supports(event.getAggregateType())) {
+                            subscriber.onEvent(event);
+                        }
+                    }
+                }
+                delivered.add(new Object[] { publishedAt, event.getId() });
+                deliveryDelay.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                blockedAggregates.add(aggregate);
+                String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                failures.add(new Object[] { error.length() > 500 ? error.substring(0, 500) : error, event.getId() });
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    System.err.println("Outbox event " + event.getId() + " (" + event.getEventType() + ") failed "
+                            + maxAttempts + " times and will not be retried: " + error);
+                }
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE outbox_events SET published_at = ? WHERE id = ?", delivered);
+            published.increment(delivered.size());
+        }
+        if (!failures.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE outbox_events SET attempts = attempts + 1, last_error = ? WHERE id = ?", failures);
+            failed.increment(failures.size());
+        }
+        return delivered.size();
+    }
+
+    // Hands each subscriber all of the batch it supports in one call; false if any of them threw
+    private boolean deliverAll(List<OutboxEvent> events) {
+        try {
+            for (OutboxSubscriber subscriber : subscribers) {
+                List<OutboxEvent> supported = new ArrayList<>();
+                for (OutboxEvent event : events) {
+                    if (subscriber.supports(event.getAggregateType())) {
+                        supported.add(event);
+                    }
+                }
+                if (!supported.isEmpty()) {
+                    subscriber.onEvents(supported);
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void updateLag() {
+        jdbcTemplate.query("SELECT COUNT(*), MIN(created_at) FROM outbox_events WHERE published_at IS NULL AND attempts < ?",
+                rs -> {
+                    pending.set(rs.getLong(1));
+                    Timestamp oldest = rs.getTimestamp(2);
+                    lagSeconds.set(oldest == null ? 0
+                            : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).getSeconds()));
+                },
+                maxAttempts);
+    }
+
+    // Published events are only kept for troubleshooting
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:3600000}",
+               initialDelayString = "${app.outbox.purge-initial-delay-ms:60000}")
+    public void purgePublished() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM outbox_events WHERE published_at < ? LIMIT ?", cutoff, batchSize * 5);
+            total += deleted;
+        } while (deleted == batchSize * 5);
+        if (total > 0) {
+            System.out.println("Purged " + total + " published outbox events");
+        }
+    }
+}
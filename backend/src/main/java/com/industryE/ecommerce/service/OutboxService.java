@@ -0,0 +1,88 @@
+package com.industryE.ecommerce.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Records domain events in the outbox table as part of the caller's transaction, so an event exists
+ * exactly when the change it describes commits. A transaction's events are queued and written in
+ * one JDBC batch just before it commits, taking the id the publisher orders by from the database;
+ * saved through Hibernate, each IDENTITY insert would run on its own and flush the session's other
+ * batched inserts with it. All delivery work happens later in {@link OutboxPublisher}.
+ * Every event is recorded, whether or not an {@link OutboxSubscriber} handles its aggregate type yet,
+ * so the table is a complete change log for consumers added later; the publisher purges published
+ * events once they pass the retention window.
+ */
+@Service
+public class OutboxService {
+
+    public static final String ORDER = "Order";
+    public static final String PRODUCT = "Product";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + eventType + " event: " + e.getMessage(), e);
+        }
+        pending().rows.add(new Object[] { aggregateType, aggregateId, eventType, json, Timestamp.valueOf(LocalDateTime.now()) });
+    }
+
+    private Pending pending() {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(OutboxService.class);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(OutboxService.class, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    // One transaction's events; an inner REQUIRES_NEW transaction gets its own while this one is suspended
+    private final class Pending implements TransactionSynchronization {
+
+        final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(OutboxService.class);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(OutboxService.class, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            jdbcTemplate.batchUpdate("INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at, attempts) "
+                    + "VALUES (?, ?, ?, ?, ?, 0)", rows);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OutboxService.class);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.industryE.ecommerce.service;
+
+import java.util.List;
+
+import com.industryE.ecommerce.entity.OutboxEvent;
+
+/**
+ * In-process consumer of outbox events. Delivery is at-least-once and in order per aggregate,
+ * so handlers must tolerate seeing an event again. Throwing leaves the event (and any later
+ * events for the same aggregate) unpublished to be retried on the next poll.
+ */
+public interface OutboxSubscriber {
+
+    // Aggregate types this subscriber wants, e.g. "Order" or "Product"
+    boolean supports(String aggregateType);
+
+    void onEvent(OutboxEvent event);
+
+    /**
+     * Handles a poll's worth of supported events, in id order, so a subscriber can write them in one
+     * batch. If it throws, the publisher redelivers the events one at a time through
+     * {@link #onEvent} to find the failing ones.
+     */
+    default void onEvents(List<OutboxEvent> events) {
+        events.forEach(this::onEvent);
+    }
+}
@@ -0,0 +1,179 @@
+package com.industryE.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.industryE.ecommerce.Enum.ProductAvailability;
+import com.industryE.ecommerce.dto.ProductAvailabilityResponse;
+
+/**
+ * Precomputed listing availability: per product, its sizes and two bitsets over them, one for the
+ * sizes in stock and one for those down to the few-left threshold. Inventory writes patch their
+ * product's entry after commit with the availability they also publish to the outbox. Whenever the
+ * inventory read model reloads, the entries are rebuilt from its snapshots plus hot-size shard
+ * stock, which picks up writes made by other instances. Lookups never touch the database or parse
+ * inventory.
+ */
+@Service
+public class ProductAvailabilityService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryReadModel readModel;
+
+    @Value("${app.products.availability.few-left-threshold:3}")
+    private int fewLeftThreshold;
+
+    @Value("${app.products.availability.max-ids:500}")
+    private int maxIds;
+
+    private final ProductSnapshotIndex<Entry> index = new ProductSnapshotIndex<>();
+
+    private static final class Entry {
+        final String[] sizes;
+        final BitSet inStock;
+        final BitSet fewLeft;
+
+        Entry(String[] sizes, BitSet inStock, BitSet fewLeft) {
+            this.sizes = sizes;
+            this.inStock = inStock;
+            this.fewLeft = fewLeft;
+        }
+    }
+
+    /** Rebuilds every entry from the freshly reloaded read model, adding the stock held in hot-size shards. */
+    @EventListener(InventoryReadModel.Reloaded.class)
+    public void rebuild() {
+        ProductSnapshotIndex<Entry>.Reload reload = index.beginReload();
+        Map<Long, Map<String, Integer>> shardStock = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, size, SUM(available) FROM inventory_shards GROUP BY product_id, size",
+                rs -> {
+                    shardStock.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getString(2), rs.getInt(3));
+                });
+
+        readModel.forEachSnapshot((productId, snapshot) -> {
+            Map<String, Integer> shards = shardStock.getOrDefault(productId, Map.of());
+            String[] sizes = new String[snapshot.count()];
+            int[] available = new int[snapshot.count()];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = snapshot.size(i);
+                // The product counts stock handed to the shards as reserved; for buyers it is still for sale
+                available[i] = snapshot.available(i) + shards.getOrDefault(sizes[i], 0);
+            }
+            reload.put(productId, snapshot.version(), entry(sizes, available));
+        });
+        reload.finish();
+    }
+
+    /**
+     * Updates the given sizes of a product once the caller's transaction commits, or right away
+     * without one. {@code available} is what buyers can take per size, shard stock included, as of
+     * product {@code version}; a patch older than the entry is dropped, so commits whose hooks run
+     * out of order can't leave stale badges. A null version (shard-only change) applies at the
+     * entry's current version.
+     */
+    public void applyAfterCommit(Long productId, Long version, Map<String, Integer> available) {
+        AfterCommit.run(() -> {
+            if (version == null) {
+                index.patchCurrent(productId, current -> patch(current, available));
+            } else {
+                index.patch(productId, version, current -> patch(current, available));
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long productId) {
+        AfterCommit.run(() -> index.remove(productId));
+    }
+
+    public ProductAvailabilityResponse lookup(List<Long> productIds, List<String> sizes) {
+        if (productIds.size() > maxIds) {
+            throw new RuntimeException("Too many products: " + productIds.size() + " (max " + maxIds + ")");
+        }
+        List<ProductAvailabilityResponse.ProductFlags> results = new ArrayList<>();
+        for (Long productId : productIds) {
+            Entry entry = index.get(productId);
+            BitSet considered = new BitSet();
+            if (entry != null) {
+                if (sizes == null || sizes.isEmpty()) {
+                    considered.set(0, entry.sizes.length);
+                } else {
+                    for (String size : sizes) {
+                        int i = indexOf(entry.sizes, size);
+                        if (i >= 0) {
+                            considered.set(i);
+                        }
+                    }
+                }
+            }
+            if (considered.isEmpty()) {
+                results.add(new ProductAvailabilityResponse.ProductFlags(productId, ProductAvailability.UNAVAILABLE, List.of()));
+                continue;
+            }
+
+            BitSet inStock = (BitSet) entry.inStock.clone();
+            inStock.and(considered);
+            BitSet plenty = (BitSet) inStock.clone();
+            plenty.andNot(entry.fewLeft);
+            ProductAvailability availability = inStock.isEmpty() ? ProductAvailability.SOLD_OUT
+                    : plenty.isEmpty() ? ProductAvailability.FEW_LEFT
+                    : ProductAvailability.IN_STOCK;
+
+            List<String> availableSizes = new ArrayList<>();
+            for (int i = inStock.nextSetBit(0); i >= 0; i = inStock.nextSetBit(i + 1)) {
+                availableSizes.add(entry.sizes[i]);
+            }
+            results.add(new ProductAvailabilityResponse.ProductFlags(productId, availability, availableSizes));
+        }
+        return new ProductAvailabilityResponse(fewLeftThreshold, results);
+    }
+
+    // A copy of the entry with the given sizes set, sizes it did not have appended
+    private Entry patch(Entry current, Map<String, Integer> available) {
+        String[] sizes = current != null ? current.sizes : new String[0];
+        BitSet inStock = current != null ? (BitSet) current.inStock.clone() : new BitSet();
+        BitSet fewLeft = current != null ? (BitSet) current.fewLeft.clone() : new BitSet();
+        for (Map.Entry<String, Integer> size : available.entrySet()) {
+            int i = indexOf(sizes, size.getKey());
+            if (i < 0) {
+                sizes = Arrays.copyOf(sizes, sizes.length + 1);
+                i = sizes.length - 1;
+                sizes[i] = size.getKey();
+            }
+            inStock.set(i, size.getValue() > 0);
+            fewLeft.set(i, size.getValue() > 0 && size.getValue() <= fewLeftThreshold);
+        }
+        return new Entry(sizes, inStock, fewLeft);
+    }
+
+    private Entry entry(String[] sizes, int[] available) {
+        BitSet inStock = new BitSet(sizes.length);
+        BitSet fewLeft = new BitSet(sizes.length);
+        for (int i = 0; i < sizes.length; i++) {
+            inStock.set(i, available[i] > 0);
+            fewLeft.set(i, available[i] > 0 && available[i] <= fewLeftThreshold);
+        }
+        return new Entry(sizes, inStock, fewLeft);
+    }
+
+    private static int indexOf(String[] sizes, String size) {
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i].equals(size)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
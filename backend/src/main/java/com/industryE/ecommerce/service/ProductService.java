@@ -19,6 +19,12 @@ public class ProductService {
     
     @Autowired
     private ProductSizeInventoryService sizeInventoryService;
+    
+    @Autowired
+    private ProductAvailabilityService availabilityService;
+
+    @Autowired
+    private InventoryReadModel inventoryReadModel;
 
     public List<ProductDTO> getAllProducts() {
         return productRepository.findAll().stream()
@@ -89,6 +95,8 @@ public class ProductService {
         
         // Size inventory is now embedded in the product, so just delete the product
         productRepository.deleteById(id);
+        availabilityService.removeAfterCommit(id);
+        inventoryReadModel.removeAfterCommit(id);
     }
 
     // Helper methods
@@ -1,23 +1,43 @@
 package com.industryE.ecommerce.service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.industryE.ecommerce.Enum.InventoryEntryType;
 import com.industryE.ecommerce.dto.ProductSizeInventoryDTO;
+import com.industryE.ecommerce.entity.InventoryJournalEntry;
 import com.industryE.ecommerce.entity.Product;
 import com.industryE.ecommerce.repository.ProductRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
 @Service
 @Transactional
 public class ProductSizeInventoryService {
@@ -25,12 +45,44 @@ public class ProductSizeInventoryService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private InventoryJournalService journalService;
+    
+    @Autowired
+    private InventoryShardService shardService;
+    
+    @Autowired
+    private ProductAvailabilityService availabilityService;
+
+    @Autowired
+    private InventoryFeedService feedService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryReadModel readModel;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${app.inventory.packed.backfill-chunk-size:500}")
+    private int backfillChunkSize;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private static final ThreadLocal<SizeInventoryCodec.Levels> LEVELS = ThreadLocal.withInitial(SizeInventoryCodec.Levels::new);
 
     // Inner class to represent size inventory data
     public static class SizeInventoryData {
         private Integer quantity = 0;
         private Integer reserved = 0;
+        // Soft cart holds (InventoryHoldService); left out of the JSON while zero
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        private Integer held = 0;
         
         public SizeInventoryData() {}
         
@@ -56,64 +108,122 @@ public class ProductSizeInventoryService {
             this.reserved = reserved;
         }
         
+        public Integer getHeld() {
+            return held;
+        }
+        
+        public void setHeld(Integer held) {
+            this.held = held;
+        }
+        
         @JsonIgnore
         public Integer getAvailable() {
-            return quantity - reserved;
+            return quantity - reserved - held;
         }
     }
 
     public List<ProductSizeInventoryDTO> getSizeInventoryByProductId(Long productId) {
+        InventoryReadModel.Snapshot snapshot = readModel.get(productId);
+        if (snapshot != null) {
+            List<ProductSizeInventoryDTO> result = new ArrayList<>(snapshot.count());
+            for (int position = 0; position < snapshot.count(); position++) {
+                int i = snapshot.displayIndex(position);
+                result.add(new ProductSizeInventoryDTO(null, snapshot.size(i), snapshot.quantity(i),
+                        snapshot.reservedForBuyers(i) + snapshot.held(i)));
+            }
+            return result;
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
         return parseInventoryToDTO(product);
     }
 
+    /**
+     * What buyers can take per size, in display order, from the read model alone; null when the model
+     * is off or doesn't have the product. No transaction and no connection: the inventory feed opens
+     * its long-lived streams with this, and the open-in-view session would hold a connection taken here
+     * until the stream closes.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Integer> getAvailableFromReadModel(Long productId) {
+        InventoryReadModel.Snapshot snapshot = readModel.get(productId);
+        if (snapshot == null) {
+            return null;
+        }
+        Map<String, Integer> available = new LinkedHashMap<>();
+        for (int position = 0; position < snapshot.count(); position++) {
+            int i = snapshot.displayIndex(position);
+            available.put(snapshot.size(i), snapshot.forSale(i));
+        }
+        return available;
+    }
+
     public ProductSizeInventoryDTO getSizeInventory(Long productId, String size) {
+        InventoryReadModel.Snapshot snapshot = readModel.get(productId);
+        if (snapshot != null) {
+            int i = snapshot.indexOf(size);
+            return i < 0 ? null : new ProductSizeInventoryDTO(null, size, snapshot.quantity(i),
+                    snapshot.reservedForBuyers(i) + snapshot.held(i));
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
-        SizeInventoryData data = inventory.get(size);
+        SizeInventoryCodec.Levels levels = readLevels(product);
+        int i = levels.indexOf(size);
         
-        if (data == null) {
+        if (i < 0) {
             return null;
         }
         
         return new ProductSizeInventoryDTO(
             null, // No separate ID since it's embedded
             size,
-            data.getQuantity(),
-            data.getReserved()
+            levels.quantity(i),
+            levels.reserved(i) + levels.held(i) // Cart holds count as reserved for display
         );
     }
 
     public boolean checkAvailability(Long productId, String size, Integer requestedQuantity) {
+        // Answered from memory; reservations re-check against the product row, so a snapshot a moment old is safe here
+        InventoryReadModel.Snapshot snapshot = readModel.get(productId);
+        if (snapshot != null) {
+            int i = snapshot.indexOf(size);
+            return i >= 0 && snapshot.forSale(i) >= requestedQuantity;
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
-        SizeInventoryData data = inventory.get(size);
+        SizeInventoryCodec.Levels levels = readLevels(product);
+        int i = levels.indexOf(size);
         
-        if (data == null) {
+        if (i < 0) {
             return false;
         }
         
-        return data.getAvailable() >= requestedQuantity;
+        return levels.available(i) >= requestedQuantity;
+    }
+
+    // Parsed size inventory of an already loaded product, for callers that check many lines at once
+    public Map<String, SizeInventoryData> getInventory(Product product) {
+        return readInventory(product);
     }
 
     public void reserveInventory(Long productId, String size, Integer quantity) {
         System.out.println("reserveInventory called: productId=" + productId + ", size=" + size + ", qty=" + quantity);
         
+        if (shardService.isHot(productId, size)) {
+            reserveFromShards(productId, size, quantity);
+            return;
+        }
+        
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        System.out.println("Current inventory JSON: " + product.getSizeInventory());
-        
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
         
         if (inventory.isEmpty()) {
-            System.err.println("WARNING: Parsed inventory is empty! Original JSON: " + product.getSizeInventory());
+            System.err.println("WARNING: Parsed inventory is empty for product " + productId);
         }
         
         SizeInventoryData data = inventory.get(size);
@@ -128,24 +238,203 @@ public class ProductSizeInventoryService {
         }
         
         data.setReserved(data.getReserved() + quantity);
-        String serialized = serializeInventory(inventory);
-        System.out.println("Serialized inventory: " + serialized);
+        writeInventory(product, inventory, List.of(size), InventoryEntryType.RESERVE);
         
-        product.setSizeInventory(serialized);
         productRepository.save(product);
         System.out.println("Inventory reserved successfully");
     }
 
+    /**
+     * Reserves stock for many lines at once. Products must already be loaded; each product's inventory
+     * is parsed and written once no matter how many sizes it covers, and nothing is saved unless every
+     * line fits, so one short size fails the whole batch.
+     */
+    public void reserveInventory(Map<Product, Map<String, Integer>> quantities) {
+        // Hot sizes come out of their shards without touching the product; id and size order keeps lock order stable
+        Map<Long, Map<String, Integer>> sharded = new TreeMap<>();
+        List<Product> changed = new ArrayList<>();
+        for (Map.Entry<Product, Map<String, Integer>> entry : quantities.entrySet()) {
+            Product product = entry.getKey();
+            Map<String, Integer> lines = new LinkedHashMap<>();
+            entry.getValue().forEach((size, quantity) -> {
+                if (shardService.isHot(product.getId(), size)) {
+                    sharded.computeIfAbsent(product.getId(), id -> new TreeMap<>()).put(size, quantity);
+                } else {
+                    lines.put(size, quantity);
+                }
+            });
+            if (lines.isEmpty()) {
+                continue;
+            }
+            Map<String, SizeInventoryData> inventory = parseInventory(product);
+
+            for (Map.Entry<String, Integer> sizeEntry : lines.entrySet()) {
+                SizeInventoryData data = inventory.get(sizeEntry.getKey());
+                if (data == null) {
+                    throw new RuntimeException("Size " + sizeEntry.getKey() + " not found for product " + product.getName());
+                }
+                if (data.getAvailable() < sizeEntry.getValue()) {
+                    throw new RuntimeException("Insufficient inventory for " + product.getName() + " size "
+                            + sizeEntry.getKey() + ". Available: " + data.getAvailable());
+                }
+                data.setReserved(data.getReserved() + sizeEntry.getValue());
+            }
+
+            writeInventory(product, inventory, lines.keySet(), InventoryEntryType.RESERVE);
+            changed.add(product);
+        }
+        sharded.forEach((productId, lines) -> lines.forEach((size, quantity) -> reserveFromShards(productId, size, quantity)));
+        productRepository.saveAll(changed);
+    }
+
+    private void reserveFromShards(Long productId, String size, int quantity) {
+        if (!shardService.reserve(productId, size, quantity)) {
+            throw new RuntimeException("Insufficient inventory for size " + size + ". Available: "
+                    + shardService.getAvailable(productId, size));
+        }
+        publishAvailability(productId, null, Map.of(size, shardService.getAvailable(productId, size)), InventoryEntryType.RESERVE);
+    }
+
+    /**
+     * Applies cart hold changes (positive to hold more, negative to release) for many products at once:
+     * one query loads them and each product's inventory is written once. Increases must fit the stock
+     * still available; releases never take the held count below zero.
+     */
+    public void adjustHolds(Map<Long, Map<String, Integer>> deltas) {
+        List<Product> products = productRepository.findAllById(deltas.keySet());
+        for (Product product : products) {
+            Map<String, SizeInventoryData> inventory = parseInventory(product);
+
+            for (Map.Entry<String, Integer> delta : deltas.get(product.getId()).entrySet()) {
+                SizeInventoryData data = inventory.get(delta.getKey());
+                if (data == null) {
+                    if (delta.getValue() > 0) {
+                        throw new RuntimeException("Size " + delta.getKey() + " not found for product " + product.getName());
+                    }
+                    continue;
+                }
+                if (delta.getValue() > 0 && data.getAvailable() < delta.getValue()) {
+                    throw new RuntimeException("Size " + delta.getKey() + " of " + product.getName()
+                            + " is not available or insufficient quantity. Available: " + data.getAvailable());
+                }
+                data.setHeld(Math.max(0, data.getHeld() + delta.getValue()));
+            }
+
+            writeInventory(product, inventory, deltas.get(product.getId()).keySet(), InventoryEntryType.HOLD);
+        }
+        productRepository.saveAll(products);
+    }
+
+    // Drops every cart hold; only for held counts written before holds had owners (InventoryHoldService)
+    public int clearAllHolds() {
+        List<Product> changed = new ArrayList<>();
+        for (Product product : productRepository.findAll()) {
+            Map<String, SizeInventoryData> inventory = parseInventory(product);
+            boolean hadHolds = false;
+            for (SizeInventoryData data : inventory.values()) {
+                if (data.getHeld() > 0) {
+                    data.setHeld(0);
+                    hadHolds = true;
+                }
+            }
+            if (hadHolds) {
+                writeInventory(product, inventory, inventory.keySet(), InventoryEntryType.HOLD);
+                changed.add(product);
+            }
+        }
+        productRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    /**
+     * Packs the size inventory of products still stored as JSON, a chunk at a time. Only the
+     * encoding changes, so the version is left alone and a request still holding the JSON copy
+     * saves without a conflict; rows it packed meanwhile are skipped, and JSON that doesn't parse
+     * is left as it is rather than packed empty.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void packLegacyInventory() {
+        int packed = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            long[] lastSeen = { lastId };
+            jdbcTemplate.query(
+                    "SELECT id, size_inventory FROM products WHERE size_inventory_packed IS NULL "
+                            + "AND size_inventory IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        lastSeen[0] = rs.getLong(1);
+                        try {
+                            Map<String, SizeInventoryData> inventory = objectMapper.readValue(rs.getString(2),
+                                    new TypeReference<Map<String, SizeInventoryData>>() {});
+                            rows.add(new Object[] { SizeInventoryCodec.encode(inventory), rs.getLong(1) });
+                        } catch (JsonProcessingException e) {
+                            System.err.println("Leaving unreadable inventory JSON of product " + rs.getLong(1)
+                                    + " unpacked: " + e.getMessage());
+                        }
+                    },
+                    lastId, backfillChunkSize);
+            if (lastSeen[0] == lastId) {
+                break;
+            }
+            lastId = lastSeen[0];
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE products SET size_inventory_packed = ?, size_inventory = NULL "
+                        + "WHERE id = ? AND size_inventory_packed IS NULL", rows);
+                packed += rows.size();
+            }
+        }
+        if (packed > 0) {
+            System.out.println("Packed the size inventory of " + packed + " products");
+        }
+    }
+
+    /** Returns reserved stock to sale for many order lines at once; each product is read and written once. */
+    public void releaseReservations(Map<Long, Map<String, Integer>> quantities) {
+        settleReservations(quantities, false);
+    }
+
+    /** Turns reserved stock into sold stock for many order lines at once; each product is read and written once. */
+    public void confirmSales(Map<Long, Map<String, Integer>> quantities) {
+        settleReservations(quantities, true);
+    }
+
+    private void settleReservations(Map<Long, Map<String, Integer>> quantities, boolean sold) {
+        List<Product> products = productRepository.findAllById(quantities.keySet());
+        for (Product product : products) {
+            Map<String, SizeInventoryData> inventory = parseInventory(product);
+
+            for (Map.Entry<String, Integer> line : quantities.get(product.getId()).entrySet()) {
+                SizeInventoryData data = inventory.get(line.getKey());
+                if (data == null) {
+                    System.err.println("Size " + line.getKey() + " not found for product " + product.getId()
+                            + "; skipping reservation " + (sold ? "confirmation" : "release"));
+                    continue;
+                }
+                // Orders placed before reservations existed may have none, so clamp rather than fail
+                data.setReserved(Math.max(0, data.getReserved() - line.getValue()));
+                if (sold) {
+                    data.setQuantity(Math.max(0, data.getQuantity() - line.getValue()));
+                }
+            }
+
+            writeInventory(product, inventory, quantities.get(product.getId()).keySet(),
+                    sold ? InventoryEntryType.CONFIRM : InventoryEntryType.RELEASE);
+        }
+        productRepository.saveAll(products);
+    }
+
     public void releaseReservedInventory(Long productId, String size, Integer quantity) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
         SizeInventoryData data = inventory.get(size);
         
         if (data != null) {
             data.setReserved(Math.max(0, data.getReserved() - quantity));
-            product.setSizeInventory(serializeInventory(inventory));
+            writeInventory(product, inventory, List.of(size), InventoryEntryType.RELEASE);
             productRepository.save(product);
         }
     }
@@ -155,7 +444,7 @@ public class ProductSizeInventoryService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
         SizeInventoryData data = inventory.get(size);
         
         if (data == null) {
@@ -168,7 +457,7 @@ public class ProductSizeInventoryService {
         
         data.setQuantity(data.getQuantity() - quantity);
         data.setReserved(data.getReserved() - quantity);
-        product.setSizeInventory(serializeInventory(inventory));
+        writeInventory(product, inventory, List.of(size), InventoryEntryType.CONFIRM);
         productRepository.save(product);
     }
 
@@ -178,7 +467,7 @@ public class ProductSizeInventoryService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
         
         for (String size : sizes) {
             if (!inventory.containsKey(size)) {
@@ -186,21 +475,96 @@ public class ProductSizeInventoryService {
             }
         }
         
-        String serialized = serializeInventory(inventory);
-        System.out.println("Serialized inventory for product " + productId + ": " + serialized);
+        writeInventory(product, inventory, sizes, InventoryEntryType.ADJUST);
         
-        product.setSizeInventory(serialized);
         Product saved = productRepository.save(product);
-        System.out.println("Saved product " + saved.getId() + " with inventory: " + saved.getSizeInventory());
+        System.out.println("Saved product " + saved.getId() + " with " + inventory.size() + " sizes");
     }
 
     public void updateInventory(Long productId, String size, Integer newQuantity) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
-        
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
+        setQuantity(productId, inventory, size, newQuantity);
+        writeInventory(product, inventory, List.of(size), InventoryEntryType.ADJUST);
+        productRepository.save(product);
+    }
+
+    /**
+     * The bulk form of {@link #updateInventory} for warehouse imports: sets the quantity of many
+     * sizes of many products, or with {@code add} adds to it. Goes around the persistence context,
+     * which spends most of a bulk write on dirty checks, whole-row updates and per-entity inserts:
+     * the rows are read and locked with one query, written back with one JDBC batch that only
+     * touches the inventory, version and timestamp, and the journal entries go out in one batch too.
+     * Bumping the version makes writers that loaded a product before the import fail their version
+     * check and retry. Returns the ids that don't exist.
+     */
+    public Set<Long> importQuantities(Map<Long, Map<String, Integer>> quantities, boolean add) {
+        // Id order, so concurrent imports lock their overlapping products in the same order
+        List<Long> ids = new ArrayList<>(quantities.keySet());
+        Collections.sort(ids);
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Long, Map<String, SizeInventoryData>> stored = new LinkedHashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT id, version, size_inventory_packed, size_inventory FROM products WHERE id IN ("
+                + placeholders + ") ORDER BY id FOR UPDATE", rs -> {
+                    byte[] packed = rs.getBytes(3);
+                    stored.put(rs.getLong(1), packed != null ? SizeInventoryCodec.decode(packed) : parseInventory(rs.getString(4)));
+                    versions.put(rs.getLong(1), rs.getLong(2));
+                }, ids.toArray());
+
+        Set<Long> missing = new HashSet<>(quantities.keySet());
+        missing.removeAll(stored.keySet());
+        if (stored.isEmpty()) {
+            return missing;
+        }
+
+        // Cached copies of these products go stale; lock the cache region until this transaction ends, as a native update would
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BulkOperationCleanupAction.schedule(session,
+                session.getFactory().getMappingMetamodel().getEntityDescriptor(Product.class));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(stored.size());
+        List<InventoryJournalEntry> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<String, SizeInventoryData>> product : stored.entrySet()) {
+            Long productId = product.getKey();
+            Map<String, SizeInventoryData> before = product.getValue();
+            Map<String, SizeInventoryData> inventory = new LinkedHashMap<>();
+            before.forEach((size, data) -> {
+                SizeInventoryData copy = new SizeInventoryData(data.getQuantity(), data.getReserved());
+                copy.setHeld(data.getHeld());
+                inventory.put(size, copy);
+            });
+
+            Map<String, Integer> lines = quantities.get(productId);
+            for (Map.Entry<String, Integer> line : lines.entrySet()) {
+                SizeInventoryData data = inventory.get(line.getKey());
+                int current = data != null ? data.getQuantity() : 0;
+                setQuantity(productId, inventory, line.getKey(), add ? current + line.getValue() : line.getValue());
+            }
+            entries.addAll(journalService.changes(productId, before, inventory, lines.keySet(), InventoryEntryType.ADJUST));
+            updates.add(new Object[] { SizeInventoryCodec.encode(inventory), now, productId });
+            long version = versions.get(productId) + 1;
+            recordInventoryChanged(productId, version, inventory, lines.keySet(), InventoryEntryType.ADJUST);
+            readModel.applyAfterCommit(productId, version, inventory);
+        }
+
+        jdbcTemplate.batchUpdate("UPDATE products SET size_inventory_packed = ?, size_inventory = NULL, "
+                + "version = version + 1, updated_at = ? WHERE id = ?", updates);
+        journalService.appendAll(entries);
+        return missing;
+    }
+
+    // Sets a size's stock, adding the size if it is new; reservations above the new stock are cut back
+    private void setQuantity(Long productId, Map<String, SizeInventoryData> inventory, String size, int newQuantity) {
         SizeInventoryData data = inventory.get(size);
+        boolean hot = shardService.isHot(productId, size);
+        if (hot && data != null) {
+            // Take the shards' stock back first so the reserved count below is only real reservations
+            data.setReserved(Math.max(0, data.getReserved() - shardService.drain(productId, size, false)));
+        }
         if (data != null) {
             data.setQuantity(newQuantity);
             data.setReserved(Math.min(data.getReserved(), newQuantity));
@@ -208,18 +572,170 @@ public class ProductSizeInventoryService {
             inventory.put(size, new SizeInventoryData(newQuantity, 0));
         }
         
-        product.setSizeInventory(serializeInventory(inventory));
-        productRepository.save(product);
+        if (hot) {
+            // What is left for sale goes straight back to the shards
+            SizeInventoryData updated = inventory.get(size);
+            int free = Math.max(0, updated.getAvailable());
+            shardService.rebalance(productId, size, free);
+            updated.setReserved(updated.getReserved() + free);
+        }
+    }
+
+    /**
+     * Turns a size into a hot size: its stock moves into {@code shards} counters that reservations
+     * take from without touching the product. The product counts that stock as reserved.
+     */
+    public void enableShards(Long productId, String size, Integer shards) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (!parseInventory(product).containsKey(size)) {
+            throw new RuntimeException("Size " + size + " not found for product");
+        }
+        shardService.create(productId, size, shards);
+        moveFreeStockToShards(product, size);
+    }
+
+    // Returns the shards' stock to the product and removes them
+    public void disableShards(Long productId, String size) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
+        int drained = shardService.drain(productId, size, true);
+        SizeInventoryData data = inventory.get(size);
+        if (data != null && drained > 0) {
+            data.setReserved(Math.max(0, data.getReserved() - drained));
+            writeInventory(product, inventory, List.of(size), InventoryEntryType.SHARD);
+            productRepository.save(product);
+        }
+    }
+
+    /**
+     * Moves stock that became free on the product (a cancelled order, a restock) into the size's
+     * shards and evens them out; the product is only written when there was stock to move.
+     */
+    public void rebalanceShards(Long productId, String size) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        moveFreeStockToShards(product, size);
+    }
+
+    private void moveFreeStockToShards(Product product, String size) {
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
+        SizeInventoryData data = inventory.get(size);
+        int free = data != null ? Math.max(0, data.getAvailable()) : 0;
+        shardService.rebalance(product.getId(), size, free);
+        if (free > 0) {
+            data.setReserved(data.getReserved() + free);
+            writeInventory(product, inventory, List.of(size), InventoryEntryType.SHARD);
+            productRepository.save(product);
+        }
+    }
+
+    /**
+     * The one write path for inventory: appends the per-size change to the journal, stores the new
+     * inventory on the product in packed form and publishes the new availability through the outbox, all in the
+     * caller's transaction, and swaps the new levels into the read model once it commits. The caller saves the product.
+     */
+    private void writeInventory(Product product, Map<String, SizeInventoryData> inventory,
+            Collection<String> sizes, InventoryEntryType type) {
+        journalService.append(product.getId(), parseInventory(product), inventory, sizes, type);
+        product.setSizeInventoryPacked(SizeInventoryCodec.encode(inventory));
+        product.setSizeInventory(null);
+        // The flush at commit bumps the version once
+        long version = product.getVersion() != null ? product.getVersion() + 1 : 0;
+        recordInventoryChanged(product.getId(), version, inventory, sizes, type);
+        readModel.applyAfterCommit(product.getId(), version, inventory);
+    }
+
+    // Publishes the new availability of the touched sizes, as of the product's new version, through the outbox
+    private void recordInventoryChanged(Long productId, long version, Map<String, SizeInventoryData> inventory,
+            Collection<String> sizes, InventoryEntryType type) {
+        Map<String, Integer> available = new LinkedHashMap<>();
+        for (String size : sizes) {
+            SizeInventoryData data = inventory.get(size);
+            if (data != null) {
+                // A size being sharded only shows up as hot once this transaction commits, so SHARD writes always ask
+                boolean sharded = type == InventoryEntryType.SHARD || shardService.isHot(productId, size);
+                available.put(size, data.getAvailable()
+                        + (sharded ? shardService.getAvailable(productId, size) : 0));
+            }
+        }
+        publishAvailability(productId, version, available, type);
+    }
+
+    // Outbox event plus the listing availability index and the live feed, which pick the change up once it commits.
+    // version is the product version the change is part of, or null for shard-only changes that leave the row alone.
+    private void publishAvailability(Long productId, Long version, Map<String, Integer> available, InventoryEntryType type) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("reason", type);
+        payload.put("version", version);
+        payload.put("available", available);
+        outboxService.record(OutboxService.PRODUCT, productId, "InventoryChanged", payload);
+        availabilityService.applyAfterCommit(productId, version, available);
+        feedService.publishAfterCommit(productId, type, available);
     }
 
     public boolean hasAvailableInventory(Long productId) {
+        InventoryReadModel.Snapshot snapshot = readModel.get(productId);
+        if (snapshot != null) {
+            for (int i = 0; i < snapshot.count(); i++) {
+                if (snapshot.forSale(i) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
-        
-        return inventory.values().stream()
-                .anyMatch(data -> data.getAvailable() > 0);
+        SizeInventoryCodec.Levels levels = readLevels(product);
+        for (int i = 0; i < levels.count(); i++) {
+            if (levels.available(i) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same view as readInventory, decoded into this thread's reusable arrays for the single-size checks
+    private SizeInventoryCodec.Levels readLevels(Product product) {
+        byte[] packed = product.getSizeInventoryPacked();
+        if (packed == null) {
+            packed = SizeInventoryCodec.encode(parseInventory(product.getSizeInventory()));
+        }
+        SizeInventoryCodec.Levels levels = LEVELS.get();
+        SizeInventoryCodec.decode(packed, levels);
+        Map<String, Integer> hotSizes = shardService.getHotSizes().get(product.getId());
+        if (hotSizes != null) {
+            for (String size : hotSizes.keySet()) {
+                int i = levels.indexOf(size);
+                if (i >= 0) {
+                    levels.setReserved(i, Math.max(0, levels.reserved(i) - shardService.getAvailable(product.getId(), size)));
+                }
+            }
+        }
+        return levels;
+    }
+
+    // Inventory as buyers see it: stock sitting in a hot size's shards counts as available again, not reserved
+    private Map<String, SizeInventoryData> readInventory(Product product) {
+        Map<String, SizeInventoryData> inventory = parseInventory(product);
+        Map<String, Integer> hotSizes = shardService.getHotSizes().get(product.getId());
+        if (hotSizes != null) {
+            for (String size : hotSizes.keySet()) {
+                SizeInventoryData data = inventory.get(size);
+                if (data != null) {
+                    data.setReserved(Math.max(0, data.getReserved() - shardService.getAvailable(product.getId(), size)));
+                }
+            }
+        }
+        return inventory;
+    }
+
+    // Stored inventory of a product: the packed form, or the JSON of a row the backfill hasn't reached yet
+    private Map<String, SizeInventoryData> parseInventory(Product product) {
+        byte[] packed = product.getSizeInventoryPacked();
+        return packed != null ? SizeInventoryCodec.decode(packed) : parseInventory(product.getSizeInventory());
     }
 
     // Helper methods for JSON parsing/serialization
@@ -252,7 +768,7 @@ public class ProductSizeInventoryService {
     }
 
     private List<ProductSizeInventoryDTO> parseInventoryToDTO(Product product) {
-        Map<String, SizeInventoryData> inventory = parseInventory(product.getSizeInventory());
+        Map<String, SizeInventoryData> inventory = readInventory(product);
         List<ProductSizeInventoryDTO> result = new ArrayList<>();
         
         for (Map.Entry<String, SizeInventoryData> entry : inventory.entrySet()) {
@@ -261,7 +777,7 @@ public class ProductSizeInventoryService {
                 null, // No separate ID
                 entry.getKey(),
                 data.getQuantity(),
-                data.getReserved()
+                data.getReserved() + data.getHeld() // Cart holds count as reserved for display
             ));
         }
         
@@ -277,10 +793,10 @@ public class ProductSizeInventoryService {
         return result;
     }
     
-    // Public method to get raw inventory JSON for a product
+    // Public method to get a product's inventory in its JSON form, whichever way it is stored
     public String getInventoryJson(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        return product.getSizeInventory();
+        return serializeInventory(parseInventory(product));
     }
 }
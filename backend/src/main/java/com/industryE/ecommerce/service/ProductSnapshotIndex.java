@@ -0,0 +1,98 @@
+package com.industryE.ecommerce.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Product id to an immutable value that is replaced whole, never edited in place: the shape of the
+ * in-memory inventory views that writes patch after commit and a periodic reload rebuilds. Each
+ * value is tagged with the product version it reflects, and a patch never replaces a newer version
+ * whatever order the after-commit hooks run in. A reload keeps whatever was patched while it was
+ * reading.
+ */
+final class ProductSnapshotIndex<V> {
+
+    private static final class Slot<V> {
+        final V value;
+        final long version;
+        final long stamp;
+
+        Slot(V value, long version, long stamp) {
+            this.value = value;
+            this.version = version;
+            this.stamp = stamp;
+        }
+    }
+
+    private final Map<Long, Slot<V>> slots = new ConcurrentHashMap<>();
+
+    // Bumped by every patch and removal, so a reload can tell which slots changed after it started reading
+    private final AtomicLong sequence = new AtomicLong();
+
+    V get(Long productId) {
+        Slot<V> slot = slots.get(productId);
+        return slot != null ? slot.value : null;
+    }
+
+    void forEach(BiConsumer<Long, V> action) {
+        slots.forEach((productId, slot) -> action.accept(productId, slot.value));
+    }
+
+    /**
+     * Replaces the product's value with {@code update} applied to the current one (null if none),
+     * unless the current one is at a newer version.
+     */
+    void patch(Long productId, long version, UnaryOperator<V> update) {
+        slots.compute(productId, (id, current) -> current != null && current.version > version ? current
+                : new Slot<>(update.apply(current != null ? current.value : null), version, sequence.incrementAndGet()));
+    }
+
+    // For changes that leave the product row alone: applied at whatever version the current value has
+    void patchCurrent(Long productId, UnaryOperator<V> update) {
+        slots.compute(productId, (id, current) -> new Slot<>(update.apply(current != null ? current.value : null),
+                current != null ? current.version : 0, sequence.incrementAndGet()));
+    }
+
+    /**
+     * Same, for a value that only makes sense on top of one the index already has. Leaves the stamp
+     * alone, so a reload that read the product meanwhile still replaces it: for derived figures the
+     * reload reads as well, which are worth less than the product's own newer levels.
+     */
+    void patchIfPresent(Long productId, UnaryOperator<V> update) {
+        slots.computeIfPresent(productId, (id, current) -> new Slot<>(update.apply(current.value), current.version, current.stamp));
+    }
+
+    void remove(Long productId) {
+        slots.remove(productId);
+        sequence.incrementAndGet();
+    }
+
+    Reload beginReload() {
+        return new Reload(sequence.get());
+    }
+
+    /** Values read by one reload; {@link #finish()} puts them in place. */
+    final class Reload {
+        private final long started;
+        private final Map<Long, Slot<V>> loaded = new HashMap<>();
+
+        private Reload(long started) {
+            this.started = started;
+        }
+
+        void put(Long productId, long version, V value) {
+            loaded.put(productId, new Slot<>(value, version, started));
+        }
+
+        // Products the reload didn't see are dropped unless patched since it started
+        void finish() {
+            slots.entrySet().removeIf(entry -> !loaded.containsKey(entry.getKey()) && entry.getValue().stamp <= started);
+            loaded.forEach((productId, slot) -> slots.merge(productId, slot,
+                    (current, reloaded) -> current.stamp > started || current.version > reloaded.version ? current : reloaded));
+        }
+    }
+}
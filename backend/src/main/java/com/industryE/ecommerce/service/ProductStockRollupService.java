@@ -0,0 +1,159 @@
+package com.industryE.ecommerce.service;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.industryE.ecommerce.entity.OutboxEvent;
+
+/**
+ * Outbox subscriber keeping {@code product_stock_rollup}: what buyers can take of each product
+ * size, shard stock included, as carried by InventoryChanged events. The admin low-stock count and
+ * list read it with one indexed query instead of decoding every product's inventory. Each row is
+ * set to an absolute value and only by an event at least as new as the product version it already
+ * has, so redelivered or late events are harmless. Products the rollup has never seen (existing
+ * catalog, or events that gave up retrying) are filled in from the read model after each reload.
+ */
+@Service
+public class ProductStockRollupService implements OutboxSubscriber {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryReadModel readModel;
+
+    @Value("${app.inventory.low-stock-threshold:5}")
+    private int lowStockThreshold;
+
+    // Adds the size if the rollup doesn't have it yet; the guarded update below then sets it
+    private static final String INSERT_MISSING = "INSERT IGNORE INTO product_stock_rollup "
+            + "(product_id, size, available, product_version) VALUES (?, ?, ?, ?)";
+
+    // A shard-only change (no version, passed as -1) applies on top of whatever version the row has
+    private static final String UPDATE_IF_NEWER = "UPDATE product_stock_rollup SET available = ?, "
+            + "product_version = GREATEST(product_version, ?) "
+            + "WHERE product_id = ? AND size = ? AND (product_version <= ? OR ? < 0)";
+
+    @Override
+    public boolean supports(String aggregateType) {
+        return OutboxService.PRODUCT.equals(aggregateType);
+    }
+
+    @Override
+    public void onEvent(OutboxEvent event) {
+        onEvents(List.of(event));
+    }
+
+    // A whole poll's events go out as one batch of rows, applied in event order
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        List<Object[]> rows = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (!"InventoryChanged".equals(event.getEventType())) {
+                continue;
+            }
+            JsonNode payload;
+            try {
+                payload = objectMapper.readTree(event.getPayload());
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Unreadable InventoryChanged payload: " + e.getMessage(), e);
+            }
+            JsonNode version = payload.get("version");
+            long productVersion = version == null || version.isNull() ? -1 : version.asLong();
+            payload.path("available").fields().forEachRemaining(size ->
+                    rows.add(new Object[] { event.getAggregateId(), size.getKey(), size.getValue().asInt(), productVersion }));
+        }
+        upsert(rows);
+    }
+
+    /** Adds the products missing from the rollup, from the freshly reloaded read model plus hot-size shard stock. */
+    @EventListener(InventoryReadModel.Reloaded.class)
+    public void fillMissing() {
+        Set<Long> missing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT p.id FROM products p WHERE NOT EXISTS (SELECT 1 FROM product_stock_rollup r WHERE r.product_id = p.id)",
+                Long.class));
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<String, Integer>> shardStock = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, size, SUM(available) FROM inventory_shards GROUP BY product_id, size",
+                rs -> {
+                    shardStock.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getString(2), rs.getInt(3));
+                });
+
+        List<Object[]> rows = new ArrayList<>();
+        Set<Long> filled = new HashSet<>();
+        readModel.forEachSnapshot((productId, snapshot) -> {
+            // Products without sizes stay missing until their first inventory write
+            if (!missing.contains(productId) || snapshot.count() == 0) {
+                return;
+            }
+            filled.add(productId);
+            Map<String, Integer> shards = shardStock.getOrDefault(productId, Map.of());
+            for (int i = 0; i < snapshot.count(); i++) {
+                rows.add(new Object[] { productId, snapshot.size(i),
+                        snapshot.available(i) + shards.getOrDefault(snapshot.size(i), 0), snapshot.version() });
+            }
+        });
+        if (!rows.isEmpty()) {
+            upsert(rows);
+            System.out.println("Filled stock rollup for " + filled.size() + " products");
+        }
+    }
+
+    // rows are (productId, size, available, productVersion). Rows the guarded update didn't touch are
+    // inserted if missing and updated again, in order, so a size's rows all apply in the same pass.
+    private void upsert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_IF_NEWER, updates(rows));
+        List<Object[]> untouched = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0 || updated[i] == Statement.SUCCESS_NO_INFO) {
+                untouched.add(rows.get(i));
+            }
+        }
+        if (!untouched.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MISSING, untouched);
+            jdbcTemplate.batchUpdate(UPDATE_IF_NEWER, updates(untouched));
+        }
+    }
+
+    private static List<Object[]> updates(List<Object[]> rows) {
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            updates.add(new Object[] { row[2], row[3], row[0], row[1], row[3], row[3] });
+        }
+        return updates;
+    }
+
+    public long countLowStockProducts() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT product_id) FROM product_stock_rollup WHERE available <= ?", Long.class, lowStockThreshold);
+        return count != null ? count : 0;
+    }
+
+    public List<Long> findLowStockProductIds() {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT product_id FROM product_stock_rollup WHERE available <= ? ORDER BY product_id",
+                Long.class, lowStockThreshold);
+    }
+}
@@ -0,0 +1,194 @@
+package com.industryE.ecommerce.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.industryE.ecommerce.service.ProductSizeInventoryService.SizeInventoryData;
+
+/**
+ * Binary form of a product's size inventory, stored in {@code products.size_inventory_packed}
+ * instead of the JSON text. Layout: a format byte, a size count byte, then per size a one-byte
+ * code from {@link #DICTIONARY} (or 0 followed by a length byte and the size's UTF-8 bytes for a
+ * size not in it) and the quantity, reserved and held counts as big-endian ints. Eleven shoe sizes
+ * take 145 bytes instead of about 350 characters of JSON, and {@link #decode(byte[], Levels)}
+ * reads them into reusable int arrays without allocating.
+ */
+public final class SizeInventoryCodec {
+
+    static final byte FORMAT = 1;
+
+    private static final int LITERAL = 0;
+    private static final int MAX_SIZES = 255;
+
+    // A size's code is its index + 1 and is stored in every row: append new sizes, never reorder
+    private static final String[] DICTIONARY = {
+        "1", "1.5", "2", "2.5", "3", "3.5", "4", "4.5", "5", "5.5", "6", "6.5", "7", "7.5", "8", "8.5",
+        "9", "9.5", "10", "10.5", "11", "11.5", "12", "12.5", "13", "13.5", "14", "14.5", "15", "15.5", "16",
+        "XXS", "XS", "S", "M", "L", "XL", "XXL", "XXXL", "One Size"
+    };
+
+    private static final Map<String, Integer> CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            CODES.put(DICTIONARY[i], i + 1);
+        }
+    }
+
+    private SizeInventoryCodec() {}
+
+    /**
+     * Decoded sizes of one product as parallel int arrays, meant to be reused: each decode
+     * overwrites the previous one and only grows the arrays when a product has more sizes than any
+     * before it. Sizes outside the dictionary are kept as offsets into the decoded bytes and only
+     * turned into Strings by {@link #size(int)}.
+     */
+    public static final class Levels {
+        private int count;
+        private int[] codes = new int[16];
+        private int[] literalOffsets = new int[16];
+        private int[] quantity = new int[16];
+        private int[] reserved = new int[16];
+        private int[] held = new int[16];
+        private byte[] source;
+
+        public int count() { return count; }
+        public int quantity(int i) { return quantity[i]; }
+        public int reserved(int i) { return reserved[i]; }
+        public int held(int i) { return held[i]; }
+        public int available(int i) { return quantity[i] - reserved[i] - held[i]; }
+
+        public void setReserved(int i, int value) { reserved[i] = value; }
+
+        public String size(int i) {
+            if (codes[i] != LITERAL) {
+                return DICTIONARY[codes[i] - 1];
+            }
+            int offset = literalOffsets[i];
+            return new String(source, offset + 1, source[offset] & 0xFF, StandardCharsets.UTF_8);
+        }
+
+        /** Position of the size, or -1; no allocation unless the size is outside the dictionary and not ASCII. */
+        public int indexOf(String size) {
+            Integer code = CODES.get(size);
+            for (int i = 0; i < count; i++) {
+                if (code != null ? codes[i] == code : codes[i] == LITERAL && literalEquals(literalOffsets[i], size)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean literalEquals(int offset, String size) {
+            int length = source[offset] & 0xFF;
+            if (length != size.length()) {
+                return size.equals(new String(source, offset + 1, length, StandardCharsets.UTF_8));
+            }
+            for (int i = 0; i < length; i++) {
+                if (source[offset + 1 + i] != size.charAt(i)) {
+                    return size.equals(new String(source, offset + 1, length, StandardCharsets.UTF_8));
+                }
+            }
+            return true;
+        }
+
+        private void ensureCapacity(int sizes) {
+            if (sizes > codes.length) {
+                codes = Arrays.copyOf(codes, sizes);
+                literalOffsets = Arrays.copyOf(literalOffsets, sizes);
+                quantity = Arrays.copyOf(quantity, sizes);
+                reserved = Arrays.copyOf(reserved, sizes);
+                held = Arrays.copyOf(held, sizes);
+            }
+        }
+    }
+
+    public static byte[] encode(Map<String, SizeInventoryData> inventory) {
+        if (inventory.size() > MAX_SIZES) {
+            throw new RuntimeException("A product can have at most " + MAX_SIZES + " sizes, got " + inventory.size());
+        }
+        // Sized up front and filled in place: bulk writers encode thousands of products per transaction
+        int length = 2;
+        for (String size : inventory.keySet()) {
+            length += CODES.containsKey(size) ? 13 : 14 + size.getBytes(StandardCharsets.UTF_8).length;
+        }
+        byte[] packed = new byte[length];
+        packed[0] = FORMAT;
+        packed[1] = (byte) inventory.size();
+        int offset = 2;
+        for (Map.Entry<String, SizeInventoryData> entry : inventory.entrySet()) {
+            Integer code = CODES.get(entry.getKey());
+            if (code != null) {
+                packed[offset++] = (byte) (int) code;
+            } else {
+                byte[] size = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                if (size.length > 255) {
+                    throw new RuntimeException("Size name too long: " + entry.getKey());
+                }
+                packed[offset++] = LITERAL;
+                packed[offset++] = (byte) size.length;
+                System.arraycopy(size, 0, packed, offset, size.length);
+                offset += size.length;
+            }
+            SizeInventoryData data = entry.getValue();
+            writeInt(packed, offset, data.getQuantity());
+            writeInt(packed, offset + 4, data.getReserved());
+            writeInt(packed, offset + 8, data.getHeld());
+            offset += 12;
+        }
+        return packed;
+    }
+
+    /** Decodes into {@code levels}, replacing what it held; returns the number of sizes. */
+    public static int decode(byte[] packed, Levels levels) {
+        if (packed[0] != FORMAT) {
+            throw new RuntimeException("Unknown size inventory format " + packed[0]);
+        }
+        int count = packed[1] & 0xFF;
+        levels.ensureCapacity(count);
+        levels.source = packed;
+        levels.count = count;
+        int offset = 2;
+        for (int i = 0; i < count; i++) {
+            int code = packed[offset++] & 0xFF;
+            levels.codes[i] = code;
+            if (code == LITERAL) {
+                levels.literalOffsets[i] = offset;
+                offset += 1 + (packed[offset] & 0xFF);
+            }
+            levels.quantity[i] = readInt(packed, offset);
+            levels.reserved[i] = readInt(packed, offset + 4);
+            levels.held[i] = readInt(packed, offset + 8);
+            offset += 12;
+        }
+        return count;
+    }
+
+    /** The map form the inventory service works with, in stored size order. */
+    public static Map<String, SizeInventoryData> decode(byte[] packed) {
+        Levels levels = new Levels();
+        decode(packed, levels);
+        Map<String, SizeInventoryData> inventory = new LinkedHashMap<>();
+        for (int i = 0; i < levels.count; i++) {
+            SizeInventoryData data = new SizeInventoryData(levels.quantity[i], levels.reserved[i]);
+            data.setHeld(levels.held[i]);
+            inventory.put(levels.size(i), data);
+        }
+        return inventory;
+    }
+
+    private static void writeInt(byte[] packed, int offset, int value) {
+        packed[offset] = (byte) (value >>> 24);
+        packed[offset + 1] = (byte) (value >>> 16);
+        packed[offset + 2] = (byte) (value >>> 8);
+        packed[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] packed, int offset) {
+        return (packed[offset] & 0xFF) << 24 | (packed[offset + 1] & 0xFF) << 16
+                | (packed[offset + 2] & 0xFF) << 8 | (packed[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,107 @@
+package com.industryE.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: adding, cancelling and expiring a timer are O(1) regardless of how many
+ * are pending. Level 0 has {@code wheelSize} buckets of {@code tickMillis} each; timers further out
+ * go to lazily created overflow levels whose tick is the whole span of the level below, and cascade
+ * down as their bucket comes due. Timers fire with tick granularity. Not thread-safe; callers lock.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final List<List<Timer<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.interval = tickMillis * wheelSize;
+        this.currentTime = startMillis - (startMillis % tickMillis);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /** Schedules a payload to expire at the given time; cancel the returned timer to drop it. */
+    public Timer<T> schedule(T payload, long expirationMillis, List<T> expiredNow) {
+        Timer<T> timer = new Timer<>(payload, expirationMillis);
+        if (!add(timer)) {
+            expiredNow.add(payload);
+        }
+        return timer;
+    }
+
+    /** Moves the wheel forward to the given time and returns the payloads of timers that expired. */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        advance(nowMillis, this, expired);
+        return expired;
+    }
+
+    // Returns false when the timer is already due, so the caller expires it right away
+    private boolean add(Timer<T> timer) {
+        if (timer.cancelled) {
+            return true;
+        }
+        if (timer.expirationMillis < currentTime + tickMillis) {
+            return false;
+        }
+        if (timer.expirationMillis < currentTime + interval) {
+            buckets.get((int) ((timer.expirationMillis / tickMillis) % wheelSize)).add(timer);
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(interval, wheelSize, currentTime);
+        }
+        return overflow.add(timer);
+    }
+
+    private void advance(long nowMillis, TimingWheel<T> root, List<T> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            // Cascade the coarser level first so its timers land in this level's buckets before we drain
+            if (overflow != null) {
+                overflow.advance(currentTime, root, expired);
+            }
+
+            int index = (int) ((currentTime / tickMillis) % wheelSize);
+            List<Timer<T>> due = buckets.get(index);
+            if (due.isEmpty()) {
+                continue;
+            }
+            buckets.set(index, new ArrayList<>());
+            for (Timer<T> timer : due) {
+                // Re-insert from the root: lands in a finer bucket, or expires if it is due now
+                if (!timer.cancelled && !root.add(timer)) {
+                    expired.add(timer.payload);
+                }
+            }
+        }
+    }
+
+    public static class Timer<T> {
+        private final T payload;
+        private final long expirationMillis;
+        private volatile boolean cancelled;
+
+        Timer(T payload, long expirationMillis) {
+            this.payload = payload;
+            this.expirationMillis = expirationMillis;
+        }
+
+        public T getPayload() { return payload; }
+
+        public long getExpirationMillis() { return expirationMillis; }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- Backorders: demand for a sold-out product size, queued per size and turned into orders on restock
+CREATE TABLE backorders (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    size VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    status ENUM('WAITING', 'ALLOCATED', 'CANCELLED') NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    allocated_at DATETIME(6),
+    order_id BIGINT,
+    payment_method VARCHAR(255),
+    shipping_first_name VARCHAR(255),
+    shipping_last_name VARCHAR(255),
+    shipping_address TEXT,
+    shipping_city VARCHAR(255),
+    shipping_province VARCHAR(255),
+    shipping_postal_code VARCHAR(255),
+    shipping_phone VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_backorders_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+-- Allocation walks one size's waiting backorders oldest first; customers list their own
+CREATE INDEX idx_backorders_queue ON backorders (product_id, size, status, created_at);
+CREATE INDEX idx_backorders_user_created ON backorders (user_id, created_at);
+
+CREATE TABLE backorders_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO backorders_seq VALUES (1);
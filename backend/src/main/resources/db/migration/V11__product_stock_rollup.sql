@@ -0,0 +1,12 @@
+-- Buyable stock per product size, kept by ProductStockRollupService from InventoryChanged outbox events
+-- for the admin low-stock views. product_version orders the updates; deleting a product drops its rows.
+CREATE TABLE product_stock_rollup (
+    product_id BIGINT NOT NULL,
+    size VARCHAR(255) NOT NULL,
+    available INTEGER NOT NULL,
+    product_version BIGINT NOT NULL,
+    PRIMARY KEY (product_id, size),
+    CONSTRAINT fk_product_stock_rollup_product FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_product_stock_rollup_available ON product_stock_rollup (available, product_id);
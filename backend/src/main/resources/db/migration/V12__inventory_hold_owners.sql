@@ -0,0 +1,19 @@
+-- Cart holds per instance: each running instance's share of the held counts in products, so the holds of an
+-- instance that stopped can be released without touching anyone else's. An instance whose heartbeat is older
+-- than the hold TTL is gone; whoever notices releases its holds and deletes its rows.
+CREATE TABLE inventory_hold_instances (
+    instance_id VARCHAR(64) NOT NULL,
+    heartbeat_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (instance_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE inventory_holds (
+    instance_id VARCHAR(64) NOT NULL,
+    product_id BIGINT NOT NULL,
+    size VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    PRIMARY KEY (instance_id, product_id, size)
+) ENGINE=InnoDB;
+
+-- Held counts written before holds had owners belong to no instance; the first instance to start clears them
+INSERT INTO inventory_hold_instances VALUES ('legacy', '1970-01-01 00:00:00');
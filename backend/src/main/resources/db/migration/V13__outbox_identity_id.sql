@@ -0,0 +1,5 @@
+-- Outbox ids come from the database's own counter instead of pooled per-instance sequence blocks, so the
+-- events of one aggregate, whose writes are serialized on its row, get ids in commit order
+ALTER TABLE outbox_events MODIFY id BIGINT NOT NULL AUTO_INCREMENT;
+
+DROP TABLE outbox_events_seq;
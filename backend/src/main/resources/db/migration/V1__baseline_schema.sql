@@ -0,0 +1,122 @@
+-- Baseline schema matching the JPA mappings (previously created by ddl-auto=create-drop)
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(255),
+    location VARCHAR(255),
+    bio VARCHAR(500),
+    role ENUM('USER', 'ADMIN') NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE products (
+    id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1000) NOT NULL,
+    price FLOAT(53) NOT NULL,
+    image VARCHAR(255),
+    color VARCHAR(255),
+    brand VARCHAR(255),
+    rating FLOAT(53),
+    available_sizes TEXT,
+    size_inventory TEXT,
+    category VARCHAR(255) NOT NULL,
+    in_stock BIT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE carts (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_carts_user UNIQUE (user_id),
+    CONSTRAINT fk_carts_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE cart_items (
+    id BIGINT NOT NULL,
+    cart_id BIGINT,
+    product_id BIGINT,
+    size VARCHAR(255),
+    quantity INTEGER,
+    unit_price DECIMAL(10,2),
+    total_price DECIMAL(10,2),
+    created_at DATETIME(6),
+    selected BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_cart_items_cart FOREIGN KEY (cart_id) REFERENCES carts (id),
+    CONSTRAINT fk_cart_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE orders (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    order_number VARCHAR(255) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    status TINYINT NOT NULL,
+    order_date DATETIME(6) NOT NULL,
+    shipping_first_name VARCHAR(255),
+    shipping_last_name VARCHAR(255),
+    shipping_address TEXT,
+    shipping_city VARCHAR(255),
+    shipping_province VARCHAR(255),
+    shipping_postal_code VARCHAR(255),
+    shipping_phone VARCHAR(255),
+    payment_method VARCHAR(255),
+    payment_status TINYINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_orders_order_number UNIQUE (order_number),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE order_items (
+    id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    product_image TEXT,
+    size VARCHAR(255),
+    unit_price DECIMAL(10,2) NOT NULL,
+    quantity INTEGER NOT NULL,
+    total_price DECIMAL(10,2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE reviews (
+    id BIGINT NOT NULL,
+    rating INTEGER NOT NULL,
+    comment TEXT,
+    created_at DATETIME(6) NOT NULL,
+    user_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reviews_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_reviews_product FOREIGN KEY (product_id) REFERENCES products (id)
+) ENGINE=InnoDB;
+
+-- Pooled id sequences (MySQL has no native sequences, Hibernate uses one-row tables)
+CREATE TABLE products_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO products_seq VALUES (1);
+
+CREATE TABLE cart_items_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO cart_items_seq VALUES (1);
+
+CREATE TABLE orders_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO orders_seq VALUES (1);
+
+CREATE TABLE order_items_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO order_items_seq VALUES (1);
+
+CREATE TABLE reviews_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO reviews_seq VALUES (1);
@@ -0,0 +1,16 @@
+-- Indexes for the main repository queries
+
+-- OrderRepository.findByUserIdOrderByOrderDateDesc / findByIdAndUserId
+CREATE INDEX idx_orders_user_order_date ON orders (user_id, order_date);
+
+-- OrderRepository.findByStatus / countByStatus
+CREATE INDEX idx_orders_status ON orders (status);
+
+-- ReviewRepository.findByProductIdOrderByCreatedAtDesc
+CREATE INDEX idx_reviews_product_created_at ON reviews (product_id, created_at);
+
+-- ProductRepository.findByCategory / countByCategory / findDistinctCategories
+CREATE INDEX idx_products_category ON products (category);
+
+-- CartItemRepository.findByCartIdAndProductIdAndSize (also serves the cart_id foreign key)
+CREATE INDEX idx_cart_items_cart_product_size ON cart_items (cart_id, product_id, size);
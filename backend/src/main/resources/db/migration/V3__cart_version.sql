@@ -0,0 +1,2 @@
+-- Monotonic cart version, bumped on every cart mutation and returned to clients as an ETag
+ALTER TABLE carts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
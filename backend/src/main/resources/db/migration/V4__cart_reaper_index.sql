@@ -0,0 +1,2 @@
+-- CartReaperService scans carts by last update to find idle and empty carts
+CREATE INDEX idx_carts_updated_at ON carts (updated_at);
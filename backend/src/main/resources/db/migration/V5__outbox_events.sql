@@ -0,0 +1,19 @@
+-- Transactional outbox: domain events written with the changes that caused them, published by OutboxPublisher
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload TEXT,
+    created_at DATETIME(6) NOT NULL,
+    published_at DATETIME(6),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- The poller reads unpublished events in id order; the purge deletes published ones by age
+CREATE INDEX idx_outbox_events_published_id ON outbox_events (published_at, id);
+
+CREATE TABLE outbox_events_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO outbox_events_seq VALUES (1);
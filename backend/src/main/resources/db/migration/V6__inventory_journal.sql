@@ -0,0 +1,33 @@
+-- Append-only inventory journal: one row per product size changed, holding the deltas applied
+CREATE TABLE inventory_journal (
+    id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    size VARCHAR(255) NOT NULL,
+    entry_type ENUM('RESERVE', 'RELEASE', 'CONFIRM', 'ADJUST', 'HOLD') NOT NULL,
+    quantity_delta INTEGER NOT NULL,
+    reserved_delta INTEGER NOT NULL,
+    held_delta INTEGER NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Point-in-time rebuilds sum a product's entries between two times; snapshots find products changed in a window
+CREATE INDEX idx_inventory_journal_product_created ON inventory_journal (product_id, created_at);
+CREATE INDEX idx_inventory_journal_created ON inventory_journal (created_at);
+
+-- Full inventory of a product including every journal entry created up to covers_until
+CREATE TABLE inventory_snapshots (
+    id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    covers_until DATETIME(6) NOT NULL,
+    size_inventory TEXT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_inventory_snapshots_product_covers ON inventory_snapshots (product_id, covers_until);
+
+CREATE TABLE inventory_journal_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO inventory_journal_seq VALUES (1);
+
+CREATE TABLE inventory_snapshots_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO inventory_snapshots_seq VALUES (1);
@@ -0,0 +1,10 @@
+-- Hot-size stock counters: a size's sellable stock split over several rows so reservations don't all lock one row
+CREATE TABLE inventory_shards (
+    product_id BIGINT NOT NULL,
+    size VARCHAR(255) NOT NULL,
+    shard INTEGER NOT NULL,
+    available INTEGER NOT NULL,
+    PRIMARY KEY (product_id, size, shard)
+) ENGINE=InnoDB;
+
+ALTER TABLE inventory_journal MODIFY entry_type ENUM('RESERVE', 'RELEASE', 'CONFIRM', 'ADJUST', 'HOLD', 'SHARD') NOT NULL;
@@ -0,0 +1,2 @@
+-- Optimistic lock version for products, checked on every write
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
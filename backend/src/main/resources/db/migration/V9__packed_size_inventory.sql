@@ -0,0 +1,2 @@
+-- Size inventory in SizeInventoryCodec's binary form; size_inventory keeps the JSON of rows not converted yet
+ALTER TABLE products ADD COLUMN size_inventory_packed BLOB;
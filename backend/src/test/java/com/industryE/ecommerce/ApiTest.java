@@ -0,0 +1,75 @@
+package com.industryE.ecommerce;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Base for tests that call the API in process, through the full filter chain, against the seeded
+ * in-memory database of the {@code test} profile. Subclasses share one application context.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class ApiTest {
+
+    protected static final String ADMIN = "admin@shoestop.com";
+    protected static final String ADMIN_PASSWORD = "admin123";
+    protected static final String USER = "demo1@shoestop.com";
+    protected static final String USER_PASSWORD = "password";
+
+    private static final String[] SIZES = { "7", "7.5", "8", "8.5", "9", "9.5", "10", "10.5", "11", "11.5", "12" };
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    /** Logs in through /api/auth/login and returns the Authorization header value. */
+    protected String bearer(String email, String password) throws Exception {
+        String response = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", email, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + objectMapper.readTree(response).get("token").asText();
+    }
+
+    /**
+     * Places an order of {@code items} lines, one pair each of a different size of the first seeded
+     * products (50 of every size in stock), and returns the response of POST /api/orders/create.
+     */
+    protected MvcResult placeOrder(String bearer, int items) throws Exception {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            lines.add(Map.of("productId", 1 + i / SIZES.length, "name", "Test shoe", "size", SIZES[i % SIZES.length],
+                    "price", 100.0, "quantity", 1));
+        }
+        Map<String, Object> order = Map.of("totalAmount", 100.0 * items, "paymentMethod", "COD", "items", lines);
+        return mockMvc.perform(post("/api/orders/create")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isCreated())
+                .andReturn();
+    }
+
+    protected long placeOrder(String bearer) throws Exception {
+        return objectMapper.readTree(placeOrder(bearer, 1).getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -0,0 +1,133 @@
+package com.industryE.ecommerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes between two in-memory H2 databases, each of which answers {@code SELECT name FROM node}
+ * with its own name, so every test can see which one a transaction actually used.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT seconds FROM replica_lag";
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), LAG_QUERY, 2, 60_000);
+        routing.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        new JdbcTemplate(primary).execute("DROP ALL OBJECTS");
+        new JdbcTemplate(replica).execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(readNode()).isEqualTo("replica");
+        assertThat(writeNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void userReadsFromPrimaryAfterTheirOwnWrite() {
+        signIn("alice");
+        writeNode();
+        assertThat(readNode()).isEqualTo("primary");
+
+        signIn("bob");
+        assertThat(readNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackWriteDoesNotPinTheUser() {
+        signIn("alice");
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+            status.setRollbackOnly();
+        });
+        assertThat(readNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void anonymousWriteDoesNotPinAnonymousReaders() {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        writeNode();
+        assertThat(readNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void laggingReplicaIsSkippedUntilItCatchesUp() {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 30");
+        routing.refreshReplicaHealth();
+        assertThat(readNode()).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 0");
+        routing.refreshReplicaHealth();
+        assertThat(readNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaIsSkipped() {
+        new JdbcTemplate(replica).execute("DROP TABLE replica_lag");
+        routing.refreshReplicaHealth();
+        assertThat(readNode()).isEqualTo("primary");
+    }
+
+    private String readNode() {
+        return readTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private String writeNode() {
+        return writeTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        jdbc.execute("CREATE TABLE replica_lag (seconds INT)");
+        jdbc.update("INSERT INTO replica_lag VALUES (0)");
+        return dataSource;
+    }
+}
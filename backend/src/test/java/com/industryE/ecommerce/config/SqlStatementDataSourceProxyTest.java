@@ -0,0 +1,48 @@
+package com.industryE.ecommerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SqlStatementDataSourceProxyTest {
+
+    private final DataSource dataSource = (DataSource) new SqlStatementDataSourceProxy().postProcessAfterInitialization(
+            new DriverManagerDataSource("jdbc:h2:mem:sql-stats;DB_CLOSE_DELAY=-1", "sa", ""), "dataSource");
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementStats.end();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void countsEachRoundTripOnceWhateverItsParameters() {
+        jdbcTemplate.execute("CREATE TABLE item (id INT, name VARCHAR(20))");
+
+        SqlStatementStats stats = SqlStatementStats.begin();
+        jdbcTemplate.update("INSERT INTO item VALUES (?, ?)", 1, "one");
+        jdbcTemplate.batchUpdate("INSERT INTO item VALUES (?, ?)",
+                List.of(new Object[] { 2, "two" }, new Object[] { 3, "three" }, new Object[] { 4, "four" }));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item WHERE id > ?", Integer.class, 0)).isEqualTo(4);
+
+        assertThat(stats.getStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void onlyWrapsTheApplicationDataSource() {
+        DataSource pool = new DriverManagerDataSource("jdbc:h2:mem:sql-stats;DB_CLOSE_DELAY=-1", "sa", "");
+        SqlStatementDataSourceProxy proxy = new SqlStatementDataSourceProxy();
+
+        assertThat(proxy.postProcessAfterInitialization(pool, "primaryDataSource")).isSameAs(pool);
+        assertThat(proxy.postProcessAfterInitialization(dataSource, "dataSource")).isSameAs(dataSource);
+    }
+}
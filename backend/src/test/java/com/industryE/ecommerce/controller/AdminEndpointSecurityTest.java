@@ -0,0 +1,69 @@
+package com.industryE.ecommerce.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.industryE.ecommerce.ApiTest;
+
+/** The admin API is for ADMIN accounts only, whatever the method, and whether or not a token is sent. */
+class AdminEndpointSecurityTest extends ApiTest {
+
+    private static final String IMPORT = "productId,size,quantity\n1,7,0\n";
+
+    @Test
+    void inventoryImportIsAdminOnly() throws Exception {
+        mockMvc.perform(post("/api/admin/inventory/import").contentType("text/csv").content(IMPORT))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/inventory/import").contentType("text/csv").content(IMPORT)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(USER, USER_PASSWORD)))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/admin/inventory/import").contentType("text/csv").content("productId,size,quantity\n")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(ADMIN, ADMIN_PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsApplied").value(0));
+    }
+
+    @Test
+    void orderStatusChangesAreAdminOnly() throws Exception {
+        String user = bearer(USER, USER_PASSWORD);
+        long orderId = placeOrder(user);
+
+        mockMvc.perform(post("/api/admin/orders/bulk-status").header(HttpHeaders.AUTHORIZATION, user)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderIds\":[" + orderId + "],\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/admin/orders/" + orderId + "/status").param("status", "CANCELLED")
+                        .header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/admin/orders/" + orderId + "/payment-status").param("paymentStatus", "COMPLETED")
+                        .header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/admin/orders/" + orderId).header(HttpHeaders.AUTHORIZATION, bearer(ADMIN, ADMIN_PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.paymentStatus").value("PENDING"));
+    }
+
+    // GET is public everywhere else, so these are the easiest to leak
+    @Test
+    void adminReadsNeedAnAdminToken() throws Exception {
+        String[] reads = { "/api/admin/products/1/inventory/as-of", "/api/admin/products/1/inventory/journal",
+                "/api/admin/inventory/shards", "/api/admin/orders", "/api/admin/users" };
+        String user = bearer(USER, USER_PASSWORD);
+        String admin = bearer(ADMIN, ADMIN_PASSWORD);
+        for (String read : reads) {
+            mockMvc.perform(get(read)).andExpect(status().isForbidden());
+            mockMvc.perform(get(read).header(HttpHeaders.AUTHORIZATION, user)).andExpect(status().isForbidden());
+            mockMvc.perform(get(read).header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+        }
+    }
+}
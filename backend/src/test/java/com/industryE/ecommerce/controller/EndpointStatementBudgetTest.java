@@ -0,0 +1,49 @@
+package com.industryE.ecommerce.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import com.industryE.ecommerce.ApiTest;
+import com.industryE.ecommerce.config.SqlStatementFilter;
+
+/**
+ * Statement budgets of the read endpoints that used to issue a query per row, taken from the
+ * X-SQL-Statement-Count header the test profile exposes.
+ */
+class EndpointStatementBudgetTest extends ApiTest {
+
+    @Test
+    void catalogIsOneQuery() throws Exception {
+        assertThat(statements("/api/products", null)).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void orderHistoryDoesNotGrowWithOrders() throws Exception {
+        String user = bearer(USER, USER_PASSWORD);
+        placeOrder(user, 2);
+        int before = statements("/api/orders/user", user);
+        placeOrder(user, 3);
+        placeOrder(user, 1);
+
+        assertThat(before).isLessThanOrEqualTo(1);
+        assertThat(statements("/api/orders/user", user)).isEqualTo(before);
+    }
+
+    @Test
+    void productReviewsComeWithTheirAuthors() throws Exception {
+        // Cached or not, the authors come with the reviews
+        assertThat(statements("/api/reviews/product/2", null)).isLessThanOrEqualTo(1);
+    }
+
+    private int statements(String url, String bearer) throws Exception {
+        String count = mockMvc.perform(bearer != null ? get(url).header(HttpHeaders.AUTHORIZATION, bearer) : get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(SqlStatementFilter.STATEMENT_COUNT_HEADER);
+        assertThat(count).isNotNull();
+        return Integer.parseInt(count);
+    }
+}
@@ -0,0 +1,74 @@
+package com.industryE.ecommerce.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.industryE.ecommerce.ApiTest;
+import com.industryE.ecommerce.entity.Product;
+import com.industryE.ecommerce.service.InventoryFeedService;
+import com.industryE.ecommerce.service.ProductSizeInventoryService.SizeInventoryData;
+import com.industryE.ecommerce.service.SizeInventoryCodec;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/** An open product page hears about stock taken on other instances, not only this one. */
+class InventoryStreamTest extends ApiTest {
+
+    private static final long PRODUCT = 3;
+
+    @Autowired
+    private InventoryFeedService feedService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void streamCarriesChangesCommittedElsewhere() throws Exception {
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/products/" + PRODUCT + "/inventory/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        awaitContent(stream, "event: snapshot");
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT size_inventory_packed, size_inventory FROM products WHERE id = ?", PRODUCT);
+        Map<String, SizeInventoryData> inventory = row.get("size_inventory_packed") != null
+                ? SizeInventoryCodec.decode((byte[]) row.get("size_inventory_packed"))
+                : objectMapper.readValue((String) row.get("size_inventory"), new TypeReference<Map<String, SizeInventoryData>>() {});
+        SizeInventoryData size8 = inventory.get("8");
+        int left = size8.getAvailable() - 2;
+        size8.setReserved(size8.getReserved() + 2);
+        try {
+            // Another instance's checkout: the row changes, nothing here is told
+            jdbcTemplate.update("UPDATE products SET size_inventory_packed = ?, size_inventory = NULL, version = version + 1 WHERE id = ?",
+                    SizeInventoryCodec.encode(inventory), PRODUCT);
+            feedService.sync();
+            awaitContent(stream, "\"reason\":\"SYNC\",\"available\":{\"8\":" + left + "}");
+        } finally {
+            size8.setReserved(size8.getReserved() - 2);
+            jdbcTemplate.update("UPDATE products SET size_inventory_packed = ?, version = version + 1 WHERE id = ?",
+                    SizeInventoryCodec.encode(inventory), PRODUCT);
+            entityManagerFactory.getCache().evict(Product.class, PRODUCT);
+            feedService.sync();
+        }
+    }
+
+    private static void awaitContent(MockHttpServletResponse stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!stream.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(stream.getContentAsString()).contains(expected);
+    }
+}
@@ -0,0 +1,40 @@
+package com.industryE.ecommerce.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.industryE.ecommerce.ApiTest;
+import com.industryE.ecommerce.config.SqlStatementFilter;
+
+/** Placing an order costs the same number of statements however many lines it has. */
+class OrderCreateStatementCountTest extends ApiTest {
+
+    // Order insert, order item batch, journal batch, product update and outbox batch
+    private static final int BUDGET = 5;
+
+    @Test
+    void statementCountDoesNotGrowWithItems() throws Exception {
+        String user = bearer(USER, USER_PASSWORD);
+        int single = fewestStatements(user, 1);
+        int many = fewestStatements(user, 10);
+
+        assertThat(single).isLessThanOrEqualTo(BUDGET);
+        assertThat(many).isEqualTo(single);
+    }
+
+    /**
+     * Orders, items and journal entries take pooled ids 50 at a time, and a request that runs out
+     * of its block pays for a sequence round trip. Four orders of up to ten lines cross each block
+     * at most once, so at least one of them shows the count without a refill.
+     */
+    private int fewestStatements(String user, int items) throws Exception {
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            String count = placeOrder(user, items).getResponse().getHeader(SqlStatementFilter.STATEMENT_COUNT_HEADER);
+            assertThat(count).isNotNull();
+            fewest = Math.min(fewest, Integer.parseInt(count));
+        }
+        return fewest;
+    }
+}
@@ -0,0 +1,82 @@
+package com.industryE.ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.industryE.ecommerce.ApiTest;
+import com.industryE.ecommerce.Enum.Status;
+
+/**
+ * Calls the hot repository methods against the Flyway-migrated schema of the test database and
+ * checks, with EXPLAIN on the SQL Hibernate generated for them, that each is planned on an index.
+ */
+class HotPathIndexTest extends ApiTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // H2 keeps each foreign key's own index next to the V2 index that starts with the same column, where
+    // MySQL drops it, and may plan on either; both look the rows up by the key rather than scanning
+    @Test
+    void ordersOfAUserAreLookedUpByUser() {
+        assertThat(explain(() -> orderRepository.findByUserIdOrderByOrderDateDesc(1L)))
+                .containsPattern("/\\* public\\.(idx_orders_user_order_date|fk_orders_user_index_\\w+): user_id = \\?1 \\*/");
+    }
+
+    @Test
+    void ordersByStatusUseTheStatusIndex() {
+        assertThat(explain(() -> orderRepository.findByStatus(Status.PENDING))).contains("idx_orders_status");
+        assertThat(explain(() -> orderRepository.countByStatus(Status.PENDING))).contains("idx_orders_status");
+    }
+
+    @Test
+    void reviewsOfAProductAreLookedUpByProduct() {
+        assertThat(explain(() -> reviewRepository.findByProductIdOrderByCreatedAtDesc(1L)))
+                .containsPattern("/\\* public\\.(idx_reviews_product_created_at|fk_reviews_product_index_\\w+): product_id = \\?1 \\*/");
+    }
+
+    @Test
+    void productsByCategoryUseTheCategoryIndex() {
+        assertThat(explain(() -> productRepository.findByCategory("Running"))).contains("idx_products_category");
+        assertThat(explain(() -> productRepository.countByCategory("Running"))).contains("idx_products_category");
+    }
+
+    @Test
+    void cartLineLookupUsesTheCartProductSizeIndex() {
+        assertThat(explain(() -> cartItemRepository.findByCartIdAndProductIdAndSize(1L, 2L, "42")))
+                .contains("idx_cart_items_cart_product_size");
+    }
+
+    // The plan of the method's own query, as generated, placeholders and all; any later ones load associations
+    private String explain(Runnable repositoryCall) {
+        RecordingStatementInspector.start();
+        List<String> sql;
+        try {
+            repositoryCall.run();
+        } finally {
+            sql = RecordingStatementInspector.stop();
+        }
+        assertThat(sql).isNotEmpty();
+        String plan = jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql.get(0)),
+                rs -> rs.next() ? rs.getString(1) : null);
+        assertThat(plan).isNotNull();
+        return plan.toLowerCase();
+    }
+}
@@ -0,0 +1,44 @@
+package com.industryE.ecommerce.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.industryE.ecommerce.dto.GuestCartResponse.GuestCartLine;
+
+class GuestCartTokenProviderTest {
+
+    private final GuestCartTokenProvider provider = new GuestCartTokenProvider();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(provider, "guestCartSecret", "guest-cart-test-secret-of-at-least-32-bytes");
+        ReflectionTestUtils.setField(provider, "expirationMillis", 60_000L);
+        ReflectionTestUtils.setField(provider, "maxLines", 50);
+    }
+
+    @Test
+    void linesTravelAsAJsonArray() {
+        String token = provider.generateToken(List.of(new GuestCartLine(1L, "10.5", 2), new GuestCartLine(3L, "EU 42|W:2", 1)));
+
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        assertThat(payload).contains("\"l\":[{\"p\":1,\"s\":\"10.5\",\"q\":2},{\"p\":3,\"s\":\"EU 42|W:2\",\"q\":1}]");
+
+        // Sizes may hold any characters, separators of the old packed format included
+        assertThat(provider.parseToken(token))
+                .extracting(GuestCartLine::getProductId, GuestCartLine::getSize, GuestCartLine::getQuantity)
+                .containsExactly(tuple(1L, "10.5", 2), tuple(3L, "EU 42|W:2", 1));
+    }
+
+    @Test
+    void emptyCartRoundTrips() {
+        assertThat(provider.parseToken(provider.generateToken(List.of()))).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class AfterCommitTest {
+
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(
+            new DriverManagerDataSource("jdbc:h2:mem:after-commit", "sa", ""));
+
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    void runsRightAwayOutsideATransaction() {
+        AfterCommit.run(() -> ran.add("now"));
+        assertThat(ran).containsExactly("now");
+    }
+
+    @Test
+    void runsInOrderOnceTheTransactionCommits() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            AfterCommit.run(() -> ran.add("first"));
+            AfterCommit.run(() -> ran.add("second"));
+            assertThat(ran).isEmpty();
+        });
+        assertThat(ran).containsExactly("first", "second");
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    @Test
+    void dropsActionsOnRollback() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            AfterCommit.run(() -> ran.add("rolled back"));
+            status.setRollbackOnly();
+        });
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> AfterCommit.run(() -> ran.add("next")));
+        assertThat(ran).containsExactly("next");
+    }
+
+    @Test
+    void innerTransactionCommitsItsOwnActions() {
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            AfterCommit.run(() -> ran.add("outer"));
+            inner.executeWithoutResult(innerStatus -> AfterCommit.run(() -> ran.add("inner")));
+            assertThat(ran).containsExactly("inner");
+        });
+        assertThat(ran).containsExactly("inner", "outer");
+    }
+
+    @Test
+    void actionDeferredByAnotherActionRunsAfterIt() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                AfterCommit.run(() -> {
+                    ran.add("first");
+                    AfterCommit.run(() -> ran.add("deferred"));
+                }));
+        assertThat(ran).containsExactly("first", "deferred");
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.industryE.ecommerce.entity.User;
+import com.industryE.ecommerce.repository.CartRepository;
+
+class CartStoreRollbackTest {
+
+    private final TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(
+            new DriverManagerDataSource("jdbc:h2:mem:cart-store", "sa", "")));
+
+    private final CartStore cartStore = new CartStore();
+
+    private final User user = new User();
+
+    @BeforeEach
+    void setUp() {
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByUserIdWithItems(anyLong())).thenReturn(Optional.empty());
+        ReflectionTestUtils.setField(cartStore, "cartRepository", cartRepository);
+        ReflectionTestUtils.setField(cartStore, "enabled", true);
+        ReflectionTestUtils.setField(cartStore, "maxCarts", 10);
+        user.setId(1L);
+    }
+
+    @Test
+    void committedChangeStays() {
+        transaction.executeWithoutResult(status -> cartStore.withCart(user, state -> {
+            state.setCartId(7L);
+            return state.markDirty(null);
+        }));
+        assertThat(cartStore.withCart(user, CartStore.CartState::getCartId)).isEqualTo(7L);
+        assertThat(cartStore.withCart(user, CartStore.CartState::getVersion)).isEqualTo(1L);
+    }
+
+    @Test
+    void rolledBackChangeIsUndone() {
+        transaction.executeWithoutResult(status -> {
+            cartStore.withCart(user, state -> {
+                state.setCartId(7L);
+                return state.markDirty(null);
+            });
+            status.setRollbackOnly();
+        });
+        assertThat(cartStore.withCart(user, CartStore.CartState::getCartId)).isNull();
+        // Moves on rather than back, in case a flush already wrote the undone version
+        assertThat(cartStore.withCart(user, CartStore.CartState::getVersion)).isEqualTo(2L);
+    }
+
+    @Test
+    void cartChangedOnTopOfARolledBackChangeIsDropped() throws Exception {
+        transaction.executeWithoutResult(status -> {
+            cartStore.withCart(user, state -> {
+                state.setCartId(7L);
+                return state.markDirty(null);
+            });
+            Thread other = new Thread(() -> cartStore.withCart(user, state -> state.markDirty(null)));
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            status.setRollbackOnly();
+        });
+        assertThat(cartStore.isActive(user.getId())).isFalse();
+        assertThat(cartStore.withCart(user, CartStore.CartState::getCartId)).isNull();
+        assertThat(cartStore.withCart(user, CartStore.CartState::getVersion)).isZero();
+    }
+}
@@ -0,0 +1,67 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.industryE.ecommerce.ApiTest;
+import com.industryE.ecommerce.config.SqlStatementStats;
+
+/** Buyer-facing checks on a hot size see the shards' stock without summing inventory_shards. */
+class HotSizeReadModelTest extends ApiTest {
+
+    private static final String SHARDS = "/api/admin/products/1/inventory/7/shards";
+
+    @Autowired
+    private ProductSizeInventoryService sizeInventoryService;
+
+    @Autowired
+    private InventoryShardService shardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void hotSizeIsReadFromTheSnapshot() throws Exception {
+        String admin = bearer(ADMIN, ADMIN_PASSWORD);
+        int stock = availableOfSize7();
+        mockMvc.perform(put(SHARDS).header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+        try {
+            assertThat(availableOfSize7()).isPositive().isEqualTo(stock).isEqualTo(shardService.getAvailable(1L, "7"));
+
+            SqlStatementStats stats = SqlStatementStats.begin();
+            try {
+                assertThat(sizeInventoryService.checkAvailability(1L, "7", stock)).isTrue();
+                assertThat(sizeInventoryService.checkAvailability(1L, "7", stock + 1)).isFalse();
+                assertThat(stats.getStatementCount()).isZero();
+            } finally {
+                SqlStatementStats.end();
+            }
+
+            // A reservation taken here patches the snapshot once it commits
+            placeOrder(bearer(USER, USER_PASSWORD));
+            assertThat(availableOfSize7()).isEqualTo(stock - 1);
+
+            // One taken by another instance shows up with the next refresh
+            jdbcTemplate.update("UPDATE inventory_shards SET available = available - 1 "
+                    + "WHERE product_id = 1 AND size = '7' AND available > 0 AND shard = "
+                    + "(SELECT MIN(shard) FROM inventory_shards WHERE product_id = 1 AND size = '7' AND available > 0)");
+            shardService.refresh();
+            assertThat(availableOfSize7()).isEqualTo(stock - 2).isEqualTo(shardService.getAvailable(1L, "7"));
+        } finally {
+            mockMvc.perform(delete(SHARDS).header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+        }
+        // Disabling hands the shards' stock back to the product
+        assertThat(availableOfSize7()).isEqualTo(stock - 2);
+    }
+
+    private int availableOfSize7() {
+        return sizeInventoryService.getAvailableFromReadModel(1L).get("7");
+    }
+}
@@ -0,0 +1,38 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class InventoryImportCsvTest {
+
+    @Test
+    void splitsPlainFields() {
+        assertThat(InventoryImportService.splitCsv("12, 9.5 ,40")).containsExactly("12", "9.5", "40");
+    }
+
+    @Test
+    void keepsCommasAndDoubledQuotesInsideQuotedFields() {
+        assertThat(InventoryImportService.splitCsv("12,\"10 \"\"wide\"\", EU\",3"))
+                .containsExactly("12", "10 \"wide\", EU", "3");
+        assertThat(InventoryImportService.splitCsv(" \"productId\" , \"size\",\"quantity\""))
+                .containsExactly("productId", "size", "quantity");
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertThat(InventoryImportService.splitCsv("12,,3,")).containsExactly("12", "", "3", "");
+        assertThat(InventoryImportService.splitCsv("\"\",9,1")).containsExactly("", "9", "1");
+    }
+
+    @Test
+    void rejectsMalformedQuotes() {
+        assertThatThrownBy(() -> InventoryImportService.splitCsv("12,\"9.5,3"))
+                .hasMessageContaining("Unterminated");
+        assertThatThrownBy(() -> InventoryImportService.splitCsv("12,\"9\".5,3"))
+                .hasMessageContaining("after a quoted field");
+        assertThatThrownBy(() -> InventoryImportService.splitCsv("12,9\"5,3"))
+                .hasMessageContaining("unquoted field");
+    }
+}
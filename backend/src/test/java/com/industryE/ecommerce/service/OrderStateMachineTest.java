@@ -0,0 +1,147 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.industryE.ecommerce.Enum.PaymentStatus;
+import com.industryE.ecommerce.Enum.Status;
+import com.industryE.ecommerce.entity.Order;
+
+class OrderStateMachineTest {
+
+    // Every status change the admin may make, other than setting a status to itself
+    private static final Map<Status, Set<Status>> EXPECTED_TRANSITIONS = Map.of(
+            Status.PENDING, EnumSet.of(Status.PROCESSING, Status.DELIVERED, Status.CANCELLED),
+            Status.PROCESSING, EnumSet.of(Status.DELIVERED, Status.CANCELLED),
+            Status.DELIVERED, EnumSet.of(Status.COMPLETED),
+            Status.COMPLETED, EnumSet.noneOf(Status.class),
+            Status.CANCELLED, EnumSet.noneOf(Status.class));
+
+    private static final Map<PaymentStatus, Set<PaymentStatus>> EXPECTED_PAYMENT_TRANSITIONS = Map.of(
+            PaymentStatus.PENDING, EnumSet.of(PaymentStatus.COMPLETED, PaymentStatus.FAILED, PaymentStatus.CANCELLED),
+            PaymentStatus.FAILED, EnumSet.of(PaymentStatus.PENDING, PaymentStatus.COMPLETED, PaymentStatus.CANCELLED),
+            PaymentStatus.COMPLETED, EnumSet.noneOf(PaymentStatus.class),
+            PaymentStatus.CANCELLED, EnumSet.noneOf(PaymentStatus.class));
+
+    @Test
+    void statusTransitionsMatchTheTable() {
+        for (Status from : Status.values()) {
+            for (Status to : Status.values()) {
+                assertThat(OrderStateMachine.canTransition(from, to))
+                        .as("%s -> %s", from, to)
+                        .isEqualTo(from == to || EXPECTED_TRANSITIONS.get(from).contains(to));
+            }
+        }
+    }
+
+    @Test
+    void paymentTransitionsMatchTheTable() {
+        for (PaymentStatus from : PaymentStatus.values()) {
+            for (PaymentStatus to : PaymentStatus.values()) {
+                assertThat(OrderStateMachine.canTransition(from, to))
+                        .as("%s -> %s", from, to)
+                        .isEqualTo(from == to || EXPECTED_PAYMENT_TRANSITIONS.get(from).contains(to));
+            }
+        }
+        // No payment status yet counts as PENDING
+        for (PaymentStatus to : PaymentStatus.values()) {
+            assertThat(OrderStateMachine.canTransition(null, to))
+                    .isEqualTo(OrderStateMachine.canTransition(PaymentStatus.PENDING, to));
+        }
+    }
+
+    @Test
+    void deliveredAndCompletedNeedACompletedPayment() {
+        Order order = order(Status.PENDING, PaymentStatus.PENDING);
+        assertThatThrownBy(() -> OrderStateMachine.checkTransition(order, Status.DELIVERED))
+                .hasMessageContaining("Payment status is not yet COMPLETED");
+
+        order.setPaymentStatus(PaymentStatus.COMPLETED);
+        OrderStateMachine.checkTransition(order, Status.DELIVERED);
+
+        assertThatThrownBy(() -> OrderStateMachine.checkTransition(order(Status.CANCELLED, PaymentStatus.COMPLETED), Status.PENDING))
+                .hasMessageContaining("Cannot change order status from CANCELLED to PENDING");
+    }
+
+    @Test
+    void sourcesOfIsTheTableReadBackwards() {
+        for (Status to : Status.values()) {
+            Set<Status> expected = EXPECTED_TRANSITIONS.entrySet().stream()
+                    .filter(transition -> transition.getValue().contains(to))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(() -> EnumSet.noneOf(Status.class)));
+            assertThat(OrderStateMachine.sourcesOf(to)).as("sources of %s", to).isEqualTo(expected);
+        }
+    }
+
+    /**
+     * The bulk path checks each locked order with the state machine, then updates them all with
+     * OrderRepository.transitionStatus and fails if the counts differ. Runs that UPDATE's guards,
+     * against H2 with the statuses stored as ordinals like the orders table, for every combination
+     * of current status, payment status and target, and checks they agree with checkTransition.
+     */
+    @Test
+    void bulkUpdateGuardsAgreeWithTheStateMachine() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:order-guards;DB_CLOSE_DELAY=-1", "sa", ""));
+        try {
+            jdbcTemplate.execute("CREATE TABLE orders (id INT PRIMARY KEY, status TINYINT NOT NULL, payment_status TINYINT)");
+            for (Status to : Status.values()) {
+                List<Object[]> orders = new ArrayList<>();
+                List<Integer> allowed = new ArrayList<>();
+                for (Status from : Status.values()) {
+                    for (PaymentStatus paid : PaymentStatus.values()) {
+                        int id = orders.size();
+                        orders.add(new Object[] { id, from.ordinal(), paid.ordinal() });
+                        if (from != to && isAllowed(order(from, paid), to)) {
+                            allowed.add(id);
+                        }
+                    }
+                }
+                jdbcTemplate.update("DELETE FROM orders");
+                jdbcTemplate.batchUpdate("INSERT INTO orders (id, status, payment_status) VALUES (?, ?, ?)", orders);
+
+                String sources = OrderStateMachine.sourcesOf(to).stream()
+                        .map(from -> String.valueOf(from.ordinal()))
+                        .collect(Collectors.joining(","));
+                jdbcTemplate.update("UPDATE orders SET status = ? WHERE status IN (" + (sources.isEmpty() ? "NULL" : sources)
+                        + ") AND (? = false OR payment_status = ?)",
+                        to.ordinal(), OrderStateMachine.requiresPayment(to), PaymentStatus.COMPLETED.ordinal());
+
+                List<Integer> updated = jdbcTemplate.queryForList(
+                        "SELECT id FROM orders WHERE status = ? ORDER BY id", Integer.class, to.ordinal()).stream()
+                        .filter(id -> (Integer) orders.get(id)[1] != to.ordinal())
+                        .toList();
+                assertThat(updated).as("orders moved to %s", to).isEqualTo(allowed);
+            }
+        } finally {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    private static boolean isAllowed(Order order, Status to) {
+        try {
+            OrderStateMachine.checkTransition(order, to);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Order order(Status status, PaymentStatus paymentStatus) {
+        Order order = new Order();
+        order.setStatus(status);
+        order.setPaymentStatus(paymentStatus);
+        return order;
+    }
+}
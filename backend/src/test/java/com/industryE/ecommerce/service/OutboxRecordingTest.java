@@ -0,0 +1,27 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.industryE.ecommerce.ApiTest;
+
+/** Events are recorded whether or not anything subscribes to them yet. */
+class OutboxRecordingTest extends ApiTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void orderEventsAreRecordedWithoutASubscriber() throws Exception {
+        long orderId = placeOrder(bearer(USER, USER_PASSWORD));
+
+        List<String> events = jdbcTemplate.queryForList(
+                "SELECT event_type FROM outbox_events WHERE aggregate_type = 'Order' AND aggregate_id = ?", String.class, orderId);
+        assertThat(events).containsExactly("OrderPlaced");
+    }
+}
@@ -0,0 +1,49 @@
+package com.industryE.ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.industryE.ecommerce.ApiTest;
+import com.industryE.ecommerce.entity.OutboxEvent;
+
+/** A poll's events land in the rollup in one batch with the same outcome as one at a time. */
+class ProductStockRollupTest extends ApiTest {
+
+    @Autowired
+    private ProductStockRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchAppliesEventsInOrder() {
+        try {
+            rollupService.onEvents(List.of(
+                    inventoryChanged(1000, 4),
+                    inventoryChanged(1001, 3),
+                    // Late redelivery of an older version
+                    inventoryChanged(999, 9),
+                    // Shard-only change, applied whatever the version
+                    inventoryChanged(-1, 2)));
+
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT available, product_version FROM product_stock_rollup WHERE product_id = 2 AND size = '99'");
+            assertThat(row.get("available")).isEqualTo(2);
+            assertThat(row.get("product_version")).isEqualTo(1001L);
+        } finally {
+            jdbcTemplate.update("DELETE FROM product_stock_rollup WHERE product_id = 2 AND size = '99'");
+        }
+    }
+
+    private static OutboxEvent inventoryChanged(long version, int available) {
+        String payload = "{\"reason\":\"ADJUST\",\"version\":" + (version < 0 ? "null" : version)
+                + ",\"available\":{\"99\":" + available + "}}";
+        return new OutboxEvent(OutboxService.PRODUCT, 2L, "InventoryChanged", payload);
+    }
+}
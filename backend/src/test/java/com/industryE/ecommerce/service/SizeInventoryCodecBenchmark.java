@@ -0,0 +1,95 @@
+package com.industryE.ecommerce.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.industryE.ecommerce.service.ProductSizeInventoryService.SizeInventoryData;
+
+/**
+ * Packed size inventory ({@link SizeInventoryCodec}) against the JSON form it replaced, for a
+ * product with eleven shoe sizes. The JSON side does what parseInventory / serializeInventory in
+ * {@link ProductSizeInventoryService} do, minus their logging. Run with:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     "-Dexec.args=-cp %classpath com.industryE.ecommerce.service.SizeInventoryCodecBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SizeInventoryCodecBenchmark {
+
+    private static final TypeReference<Map<String, SizeInventoryData>> INVENTORY_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SizeInventoryCodec.Levels levels = new SizeInventoryCodec.Levels();
+
+    private Map<String, SizeInventoryData> inventory;
+    private String json;
+    private byte[] packed;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        inventory = new LinkedHashMap<>();
+        for (int i = 0; i < 11; i++) {
+            String size = i % 2 == 0 ? String.valueOf(7 + i / 2) : (7 + i / 2) + ".5";
+            SizeInventoryData data = new SizeInventoryData(20 + i, i % 3);
+            data.setHeld(i % 2);
+            inventory.put(size, data);
+        }
+        json = objectMapper.writeValueAsString(inventory);
+        packed = SizeInventoryCodec.encode(inventory);
+    }
+
+    @Benchmark
+    public Map<String, SizeInventoryData> parseJson() throws JsonProcessingException {
+        return objectMapper.readValue(json, INVENTORY_TYPE);
+    }
+
+    @Benchmark
+    public String serializeJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(inventory);
+    }
+
+    @Benchmark
+    public Map<String, SizeInventoryData> decodePacked() {
+        return SizeInventoryCodec.decode(packed);
+    }
+
+    @Benchmark
+    public byte[] encodePacked() {
+        return SizeInventoryCodec.encode(inventory);
+    }
+
+    // The single-size availability check path: decode into reused arrays and look one size up
+    @Benchmark
+    public int decodePackedLevels() {
+        SizeInventoryCodec.decode(packed, levels);
+        return levels.available(levels.indexOf("9.5"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SizeInventoryCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -179,19 +179,22 @@ function AppContent() {
           size: productSize
         })
         
-        // Update cart with backend response (includes proper cartItemId)
-        if (response.data && response.data.items) {
-          const cartItems = response.data.items.map(item => ({
-            id: item.productId,
-            name: item.productName,
-            price: item.unitPrice,
-            quantity: item.quantity,
-            size: item.size,
-            image: getLocalImageForProduct(item.productId, item.productName),
+        // Backend returns only the changed line (plus totals); merge it into the local cart
+        const changed = response.data && response.data.item
+        if (changed) {
+          const cartItem = {
+            id: changed.productId,
+            name: changed.productName,
+            price: changed.unitPrice,
+            quantity: changed.quantity,
+            size: changed.size,
+            image: getLocalImageForProduct(changed.productId, changed.productName),
             color: 'Default',
-            cartItemId: item.id
-          }))
-          setCart(cartItems)
+            cartItemId: changed.id
+          }
+          setCart(prevCart => prevCart.some(item => item.cartItemId === changed.id)
+            ? prevCart.map(item => item.cartItemId === changed.id ? cartItem : item)
+            : [...prevCart, cartItem])
         }
         
         // Show success toast
@@ -216,6 +219,17 @@ function AppContent() {
       const existingItem = cart.find(item => item.id === product.id && item.size === productSize)
       let updatedCart
 
+      // Keep the signed guest cart in step; it is merged into the account cart at login
+      try {
+        await syncGuestCart(product.id, productSize, existingItem ? existingItem.quantity + quantity : quantity)
+      } catch (error) {
+        setToast({
+          message: error.response?.data?.message || 'Failed to add item to cart. Please try again.',
+          type: 'error'
+        })
+        return
+      }
+
       if (existingItem) {
         updatedCart = cart.map(item =>
           item.id === product.id && item.size === productSize
@@ -236,6 +250,17 @@ function AppContent() {
     }
   }
 
+  // Sets one line of the guest cart and stores the re-signed token returned by the backend
+  const syncGuestCart = async (productId, size, quantity) => {
+    const response = await axios.post(`${API_BASE_URL}/cart/guest`, {
+      token: localStorage.getItem('guestCartToken'),
+      productId,
+      size,
+      quantity
+    })
+    localStorage.setItem('guestCartToken', response.data.token)
+  }
+
   const handleLogin = async (userData) => {
     setIsAuthenticated(true)
     setUser(userData)
@@ -245,36 +270,12 @@ function AppContent() {
     if (token) {
       axios.defaults.headers.common['Authorization'] = `Bearer ${token}`
     }
-    // Load the user's cart from backend
-    let backendCart = await loadCartFromBackend()
-    // Get guest cart from localStorage
-    const guestCartRaw = localStorage.getItem('cart')
-    let guestCart = []
-    if (guestCartRaw) {
-      try {
-        guestCart = JSON.parse(guestCartRaw)
-      } catch (e) {
-        guestCart = []
-      }
-    }
-    // Only merge guest cart if backend cart is empty and guest cart has items
-    if (backendCart.length === 0 && guestCart.length > 0) {
-      try {
-        for (const item of guestCart) {
-          await axios.post(`${API_BASE_URL}/cart/add`, {
-            productId: item.id,
-            quantity: item.quantity,
-            size: item.size
-          })
-        }
-        backendCart = await loadCartFromBackend()
-      } catch (error) {
-        console.error('Error merging guest cart:', error)
-      }
-    }
+    // The guest cart token was sent with the login request and merged on the backend
+    const backendCart = await loadCartFromBackend()
     setCart(backendCart)
     // Always clear guest cart after login
     localStorage.removeItem('cart')
+    localStorage.removeItem('guestCartToken')
     setToast({
       message: `Welcome back, ${userData.name}!`,
       type: 'success'
@@ -331,6 +332,16 @@ function AppContent() {
       }
     } else {
       // Save to localStorage for guest users
+      try {
+        await syncGuestCart(id, size, newQuantity)
+      } catch (error) {
+        setCart(cart)
+        setToast({
+          message: error.response?.data?.message || 'Failed to update cart. Please try again.',
+          type: 'error'
+        })
+        return
+      }
       localStorage.setItem('cart', JSON.stringify(updatedCart))
     }
   }
@@ -363,6 +374,11 @@ function AppContent() {
       }
     } else {
       // Save to localStorage for guest users
+      try {
+        await syncGuestCart(id, size, 0)
+      } catch (error) {
+        console.error('Error updating guest cart:', error)
+      }
       localStorage.setItem('cart', JSON.stringify(updatedCart))
       setToast({
         message: 'Item removed from cart',
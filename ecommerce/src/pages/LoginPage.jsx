@@ -62,7 +62,8 @@ const LoginPage = ({ onLogin }) => {
         },
         body: JSON.stringify({
           email: formData.email,
-          password: formData.password
+          password: formData.password,
+          guestCartToken: localStorage.getItem('guestCartToken')
         })
       })
       
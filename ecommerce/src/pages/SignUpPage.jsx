@@ -76,7 +76,8 @@ const SignUpPage = ({ setToast }) => {
         body: JSON.stringify({
           name: formData.name,
           email: formData.email,
-          password: formData.password
+          password: formData.password,
+          guestCartToken: localStorage.getItem('guestCartToken')
         })
       })
       